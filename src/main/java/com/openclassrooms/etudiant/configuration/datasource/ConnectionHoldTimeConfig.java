@@ -0,0 +1,30 @@
+package com.openclassrooms.etudiant.configuration.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Puts the application DataSource behind a {@link ConnectionHoldTimeDataSource}, to size the pool from the time
+ * each endpoint keeps its connections.
+ */
+@Configuration
+public class ConnectionHoldTimeConfig {
+
+    @Bean
+    public static BeanPostProcessor connectionHoldTimePostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ConnectionHoldTimeDataSource) {
+                    return bean;
+                }
+                return new ConnectionHoldTimeDataSource(dataSource, meterRegistry.getObject());
+            }
+        };
+    }
+}
@@ -0,0 +1,75 @@
+package com.openclassrooms.etudiant.configuration.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times how long connections are held, from getConnection to close, by endpoint of the request that took them.
+ * With open-in-view, a request holds its connection until its response is written; without it, only for its
+ * transactions. The uri is the endpoint pattern, UNKNOWN for the requests not matched to one yet, as in the
+ * security filters, and none outside of a request thread: scheduled jobs, imports and asynchronous exports.
+ */
+public class ConnectionHoldTimeDataSource extends DelegatingDataSource implements Closeable {
+    static final String METER = "datasource.connection.hold";
+    static final String UNKNOWN = "UNKNOWN";
+    static final String NONE = "none";
+
+    private final MeterRegistry meterRegistry;
+
+    public ConnectionHoldTimeDataSource(DataSource targetDataSource, MeterRegistry meterRegistry) {
+        super(targetDataSource);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return timed(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return timed(super.getConnection(username, password));
+    }
+
+    // The request has moved on by the time the connection is closed, the endpoint is the one that took it.
+    private Connection timed(Connection connection) {
+        Timer timer = timer();
+        long start = System.nanoTime();
+        return ConnectionCloseHook.onClose(connection, () -> timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+    }
+
+    private Timer timer() {
+        String uri = NONE;
+        String method = NONE;
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            HttpServletRequest request = attributes.getRequest();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            uri = pattern != null ? pattern.toString() : UNKNOWN;
+            method = request.getMethod();
+        }
+        return Timer.builder(METER)
+                .tag("uri", uri)
+                .tag("method", method)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (getTargetDataSource() instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.openclassrooms.etudiant.configuration.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lets at most as many threads hold a connection as the pool has, and at most maxWaiting more wait for one.
+ * With virtual threads, requests are no longer bounded by the Tomcat pool: without this, every request
+ * beyond the pool size would queue in the connection pool until its connection timeout. The threads over
+ * the limit fail at once instead, and so does a wait longer than the acquire timeout.
+ * A permit is held from getConnection until the connection is closed, for the whole transaction.
+ */
+public class ConnectionLimitedDataSource extends DelegatingDataSource implements Closeable {
+    private final Semaphore permits;
+    private final int maxWaiting;
+    private final long acquireTimeoutNanos;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Counter rejected;
+
+    /**
+     * @param pool name of the connection pool, which tags the meters
+     */
+    public ConnectionLimitedDataSource(DataSource targetDataSource, String pool, int maxConnections, int maxWaiting,
+                                       Duration acquireTimeout, MeterRegistry meterRegistry) {
+        super(targetDataSource);
+        // Fair, so that the waiting threads get connections in the order they asked for one.
+        this.permits = new Semaphore(maxConnections, true);
+        this.maxWaiting = maxWaiting;
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        this.rejected = Counter.builder("datasource.limiter.rejected").tag("pool", pool).register(meterRegistry);
+        Gauge.builder("datasource.limiter.waiting", waiting, AtomicInteger::get).tag("pool", pool).register(meterRegistry);
+        Gauge.builder("datasource.limiter.available", permits, Semaphore::availablePermits).tag("pool", pool)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return limited(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return limited(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    // Spring closes the DataSource bean at shutdown, which is this wrapper once it is installed.
+    @Override
+    public void close() throws IOException {
+        if (getTargetDataSource() instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    private void acquire() throws SQLException {
+        if (permits.tryAcquire()) {
+            return;
+        }
+        if (waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            rejected.increment();
+            throw new SQLTransientConnectionException("Too many requests are waiting for a database connection");
+        }
+        try {
+            if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                rejected.increment();
+                throw new SQLTransientConnectionException("No database connection became available in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database connection", e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    // Gives the permit back when the connection is closed.
+    private Connection limited(Connection connection) {
+        return ConnectionCloseHook.onClose(connection, permits::release);
+    }
+}
@@ -0,0 +1,59 @@
+package com.openclassrooms.etudiant.configuration.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * With spring.threads.virtual.enabled, puts the application DataSource behind a {@link ConnectionLimitedDataSource}
+ * sized like the connection pool. A {@link ReplicaRoutingDataSource} is left as is: it limits each of its pools.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class ConnectionLimiterConfig {
+
+    @Bean
+    public static BeanPostProcessor connectionLimiterPostProcessor(Environment environment,
+                                                                   ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ConnectionLimitedDataSource
+                        || DataSourceUnwrapper.unwrap(dataSource, ReplicaRoutingDataSource.class) != null) {
+                    return bean;
+                }
+                HikariDataSource pool = DataSourceUnwrapper.unwrap(dataSource, HikariDataSource.class);
+                if (pool == null) {
+                    return bean;
+                }
+                return limit(dataSource, pool, beanName, environment, meterRegistry.getObject());
+            }
+        };
+    }
+
+    /**
+     * Puts dataSource, which takes its connections from pool, behind a limiter sized like that pool.
+     */
+    static ConnectionLimitedDataSource limit(DataSource dataSource, HikariDataSource pool, String name,
+                                             Environment environment, MeterRegistry meterRegistry) {
+        int maxWaiting = environment.getProperty("datasource.limiter.max-waiting", Integer.class, 200);
+        Duration acquireTimeout = environment.getProperty("datasource.limiter.acquire-timeout", Duration.class,
+                Duration.ofSeconds(5));
+        log.info("Connections of {} limited to {} holders and {} waiting threads", name, pool.getMaximumPoolSize(),
+                maxWaiting);
+        return new ConnectionLimitedDataSource(dataSource, name, pool.getMaximumPoolSize(), maxWaiting, acquireTimeout,
+                meterRegistry);
+    }
+}
@@ -0,0 +1,47 @@
+package com.openclassrooms.etudiant.configuration.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.openclassrooms.etudiant.service.StudentChangeEvent;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+/**
+ * Remembers the users who just changed a student, so that their reads go to the primary until the replicas have
+ * caught up with the change. Only the requests served by this instance are tracked.
+ */
+public class ReadYourWritesTracker {
+    private final Cache<String, Boolean> writers;
+
+    public ReadYourWritesTracker(Duration window) {
+        this.writers = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStudentChange(StudentChangeEvent event) {
+        String user = currentUser();
+        if (user != null) {
+            writers.put(user, Boolean.TRUE);
+        }
+    }
+
+    public boolean isPrimaryRequired() {
+        String user = currentUser();
+        return user != null && writers.getIfPresent(user) != null;
+    }
+
+    // Changes made by imports and scheduled jobs have no user, nobody is waiting to read them.
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated() || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
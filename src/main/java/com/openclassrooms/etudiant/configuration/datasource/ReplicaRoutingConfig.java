@@ -0,0 +1,74 @@
+package com.openclassrooms.etudiant.configuration.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * With datasource.replicas.urls, replaces the application DataSource with a {@link ReplicaRoutingDataSource}:
+ * the primary is the one configured under spring.datasource, each replica gets a pool configured the same way.
+ * With virtual threads, each pool gets its own {@link ConnectionLimitedDataSource}.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnExpression("!'${datasource.replicas.urls:}'.isBlank()")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(@Value("${datasource.replicas.read-your-writes:5s}") Duration window) {
+        return new ReadYourWritesTracker(window);
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource dataSource(DataSourceProperties properties,
+                                               Environment environment,
+                                               ReadYourWritesTracker readYourWritesTracker,
+                                               MeterRegistry meterRegistry,
+                                               @Value("${datasource.replicas.urls}") List<String> urls,
+                                               @Value("${datasource.replicas.max-lag:2s}") Duration maxLag,
+                                               @Value("${datasource.replicas.lag-check-interval:1s}") Duration checkInterval,
+                                               @Value("${spring.jpa.open-in-view:true}") boolean openInView) {
+        // The request's entity manager would keep the connection of its first transaction, replica or not, for the next ones.
+        if (openInView) {
+            throw new IllegalStateException("Reading from replicas requires spring.jpa.open-in-view=false");
+        }
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : urls) {
+            HikariConfig config = new HikariConfig();
+            primary.copyStateTo(config);
+            config.setJdbcUrl(url.trim());
+            config.setPoolName("replica-" + (replicas.size() + 1));
+            config.setReadOnly(true);
+            // A replica that is down at startup is left out of the reads instead of failing the startup.
+            config.setInitializationFailTimeout(-1);
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(new HikariDataSource(config));
+        }
+        Function<HikariDataSource, DataSource> limiter = Threading.VIRTUAL.isActive(environment)
+                ? pool -> ConnectionLimiterConfig.limit(pool, pool, pool == primary ? "primary" : pool.getPoolName(),
+                        environment, meterRegistry)
+                : pool -> pool;
+        log.info("Read-only transactions routed to {} replicas with a max lag of {}", replicas.size(), maxLag);
+        return new ReplicaRoutingDataSource(primary, replicas, limiter, maxLag, checkInterval,
+                readYourWritesTracker::isPrimaryRequired, meterRegistry);
+    }
+}
@@ -0,0 +1,177 @@
+package com.openclassrooms.etudiant.configuration.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * Sends the read-only transactions to the replicas and everything else to the primary. Connections are only taken
+ * at their first statement, once the transaction manager has marked them read-only, so the transaction decides
+ * where it runs; a read-only method called from a read-write transaction stays on its connection to the primary.
+ * <p>
+ * A replica serves reads while its lag stays within maxLag, and the reads go round-robin across those that do.
+ * The lag is the age of the heartbeat the primary writes before each check, as the replica sees it, so it includes
+ * up to one check interval and relies on the clocks of the servers being in sync. Reads go to the primary when no
+ * replica is in sync or when primaryRequired says the current request must see its own writes.
+ * <p>
+ * Transactions take their connections through the limiter of each pool, while the lag checks use the pools
+ * directly, so that a busy pool does not take its replica out of the reads.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends DelegatingDataSource implements InitializingBean, Closeable {
+    private static final long UNKNOWN = -1;
+    private static final String WRITE_HEARTBEAT = "insert into replica_heartbeat (id, beat) values (1, utc_timestamp(6)) "
+            + "on duplicate key update beat = utc_timestamp(6)";
+    private static final String READ_LAG = "select timestampdiff(microsecond, beat, utc_timestamp(6)) from replica_heartbeat where id = 1";
+
+    private final HikariDataSource primary;
+    private final DataSource primaryConnections;
+    private final JdbcTemplate primaryJdbc;
+    private final List<Replica> replicas;
+    private final long maxLagMicros;
+    private final Duration checkInterval;
+    private final BooleanSupplier primaryRequired;
+    private final Counter primaryReads;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService lagChecker;
+
+    /**
+     * @param limiter wraps a pool into the DataSource transactions take its connections from
+     */
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas,
+                                    Function<HikariDataSource, DataSource> limiter, Duration maxLag,
+                                    Duration checkInterval, BooleanSupplier primaryRequired, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.primaryConnections = limiter.apply(primary);
+        this.primaryJdbc = new JdbcTemplate(primary);
+        this.replicas = replicas.stream().map(pool -> new Replica(pool, limiter.apply(pool), meterRegistry)).toList();
+        this.maxLagMicros = maxLag.toNanos() / 1000;
+        this.checkInterval = checkInterval;
+        this.primaryRequired = primaryRequired;
+        this.primaryReads = Counter.builder("datasource.replica.reads").tag("target", "primary").register(meterRegistry);
+        this.lagChecker = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("replica-lag-check-"));
+        LazyConnectionDataSourceProxy routing = new LazyConnectionDataSourceProxy(primaryConnections);
+        routing.setReadOnlyDataSource(new ReadOnlyDataSource());
+        setTargetDataSource(routing);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        lagChecker.scheduleWithFixedDelay(this::checkReplicas, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes the heartbeat on the primary, then measures how old each replica's copy of it is.
+     */
+    void checkReplicas() {
+        try {
+            primaryJdbc.update(WRITE_HEARTBEAT);
+        } catch (DataAccessException e) {
+            log.warn("Could not write the replica heartbeat: {}", e.getMessage());
+        }
+        for (Replica replica : replicas) {
+            long lag;
+            try {
+                Long measured = replica.jdbc.query(READ_LAG, resultSet -> resultSet.next() ? resultSet.getLong(1) : null);
+                lag = measured == null ? UNKNOWN : Math.max(measured, 0);
+            } catch (DataAccessException e) {
+                log.debug("Could not read the heartbeat of {}", replica.name, e);
+                lag = UNKNOWN;
+            }
+            boolean wasInSync = replica.isInSync();
+            replica.lagMicros = lag;
+            if (wasInSync && !replica.isInSync()) {
+                log.warn("Replica {} stops serving reads, its lag is {}", replica.name, lag == UNKNOWN ? "unknown" : lag / 1000 + " ms");
+            } else if (!wasInSync && replica.isInSync()) {
+                log.info("Replica {} serves reads, its lag is {} ms", replica.name, lag / 1000);
+            }
+        }
+    }
+
+    private Connection readConnection() throws SQLException {
+        if (!primaryRequired.getAsBoolean()) {
+            int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get((start + i) % replicas.size());
+                if (replica.isInSync()) {
+                    try {
+                        Connection connection = replica.connections.getConnection();
+                        replica.reads.increment();
+                        return connection;
+                    } catch (SQLException e) {
+                        log.warn("Replica {} is unavailable, reading elsewhere: {}", replica.name, e.getMessage());
+                        replica.lagMicros = UNKNOWN;
+                    }
+                }
+            }
+        }
+        primaryReads.increment();
+        return primaryConnections.getConnection();
+    }
+
+    @Override
+    public void close() {
+        lagChecker.shutdownNow();
+        replicas.forEach(replica -> replica.pool.close());
+        primary.close();
+    }
+
+    private class ReadOnlyDataSource extends AbstractDataSource {
+        @Override
+        public Connection getConnection() throws SQLException {
+            return readConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            throw new SQLFeatureNotSupportedException("Replica connections use the credentials of their pool");
+        }
+    }
+
+    private class Replica {
+        private final String name;
+        private final HikariDataSource pool;
+        private final DataSource connections;
+        private final JdbcTemplate jdbc;
+        private final Counter reads;
+        private volatile long lagMicros = UNKNOWN;
+
+        private Replica(HikariDataSource pool, DataSource connections, MeterRegistry meterRegistry) {
+            this.name = pool.getPoolName();
+            this.pool = pool;
+            this.connections = connections;
+            this.jdbc = new JdbcTemplate(pool);
+            this.reads = Counter.builder("datasource.replica.reads").tag("target", name).register(meterRegistry);
+            Gauge.builder("datasource.replica.lag", this, replica -> replica.lagMicros == UNKNOWN ? Double.NaN : replica.lagMicros / 1e6)
+                    .tag("replica", name).baseUnit("seconds").register(meterRegistry);
+        }
+
+        private boolean isInSync() {
+            return lagMicros != UNKNOWN && lagMicros <= maxLagMicros;
+        }
+    }
+}
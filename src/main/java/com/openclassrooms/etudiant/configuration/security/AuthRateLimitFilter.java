@@ -0,0 +1,128 @@
+package com.openclassrooms.etudiant.configuration.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for the endpoints that run BCrypt: requests are throttled per client address
+ * and per login, and the number of requests hashing at the same time is capped. Batch introspections,
+ * which verify up to a thousand tokens each, are throttled per client address too.
+ * Rejections answer 429 with Retry-After before any database, BCrypt or token work.
+ */
+@Slf4j
+public class AuthRateLimitFilter extends OncePerRequestFilter {
+    private static final RequestMatcher LOGIN_ROUTE = PathPatternRequestMatcher.withDefaults().matcher("/api/login");
+    private static final RequestMatcher HASHING_ROUTES = new OrRequestMatcher(
+            LOGIN_ROUTE, PathPatternRequestMatcher.withDefaults().matcher("/api/register"));
+    private static final RequestMatcher INTROSPECTION_ROUTE = PathPatternRequestMatcher.withDefaults()
+            .matcher(HttpMethod.POST, SpringSecurityConfig.INTROSPECTION_ROUTE);
+
+    private final TokenBucketRateLimiter clientLimiter;
+    private final TokenBucketRateLimiter loginLimiter;
+    private final TokenBucketRateLimiter introspectionLimiter;
+    private final Semaphore hashingPermits;
+    private final Counter clientRejections;
+    private final Counter loginRejections;
+    private final Counter introspectionRejections;
+    private final Counter concurrencyRejections;
+
+    public AuthRateLimitFilter(TokenBucketRateLimiter clientLimiter,
+                               TokenBucketRateLimiter loginLimiter,
+                               TokenBucketRateLimiter introspectionLimiter,
+                               int maxConcurrentHashing,
+                               MeterRegistry meterRegistry) {
+        this.clientLimiter = clientLimiter;
+        this.loginLimiter = loginLimiter;
+        this.introspectionLimiter = introspectionLimiter;
+        this.hashingPermits = new Semaphore(maxConcurrentHashing);
+        this.clientRejections = rejectionCounter(meterRegistry, "client");
+        this.loginRejections = rejectionCounter(meterRegistry, "login");
+        this.introspectionRejections = rejectionCounter(meterRegistry, "introspection");
+        this.concurrencyRejections = rejectionCounter(meterRegistry, "concurrency");
+        Gauge.builder("auth.rate-limit.keys", clientLimiter, TokenBucketRateLimiter::size)
+                .tag("limiter", "client").register(meterRegistry);
+        Gauge.builder("auth.rate-limit.keys", loginLimiter, TokenBucketRateLimiter::size)
+                .tag("limiter", "login").register(meterRegistry);
+        Gauge.builder("auth.rate-limit.keys", introspectionLimiter, TokenBucketRateLimiter::size)
+                .tag("limiter", "introspection").register(meterRegistry);
+        Gauge.builder("auth.rate-limit.hashing.available", hashingPermits, Semaphore::availablePermits)
+                .register(meterRegistry);
+    }
+
+    private static Counter rejectionCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("auth.rate-limit.rejections").tag("reason", reason).register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HASHING_ROUTES.matches(request) && !INTROSPECTION_ROUTE.matches(request);
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        if (INTROSPECTION_ROUTE.matches(request)) {
+            long waitNanos = introspectionLimiter.tryAcquire(request.getRemoteAddr());
+            if (waitNanos > 0) {
+                introspectionRejections.increment();
+                reject(response, waitNanos);
+                return;
+            }
+            filterChain.doFilter(request, response);
+            return;
+        }
+        long waitNanos = clientLimiter.tryAcquire(request.getRemoteAddr());
+        if (waitNanos > 0) {
+            clientRejections.increment();
+            reject(response, waitNanos);
+            return;
+        }
+        String login = LOGIN_ROUTE.matches(request) ? request.getParameter("login") : null;
+        if (login != null) {
+            waitNanos = loginLimiter.tryAcquire(login.toLowerCase(Locale.ROOT));
+            if (waitNanos > 0) {
+                loginRejections.increment();
+                reject(response, waitNanos);
+                return;
+            }
+        }
+        if (!hashingPermits.tryAcquire()) {
+            concurrencyRejections.increment();
+            reject(response, TimeUnit.SECONDS.toNanos(1));
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            hashingPermits.release();
+        }
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.getWriter().write("Too many requests");
+    }
+}
@@ -1,25 +1,44 @@
 package com.openclassrooms.etudiant.configuration.security;
 
+import com.openclassrooms.etudiant.service.TokenRevocationService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
-import org.springframework.stereotype.Component;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Arrays;
 
-@Component
 public class AuthTokenFilter extends OncePerRequestFilter {
+    private static final RequestMatcher PUBLIC_ROUTES = new OrRequestMatcher(Arrays.stream(SpringSecurityConfig.PUBLIC_ROUTES)
+            .map(route -> (RequestMatcher) PathPatternRequestMatcher.withDefaults().matcher(route))
+            .toList());
+    private static final RequestMatcher INTROSPECTION_ROUTE = PathPatternRequestMatcher.withDefaults()
+            .matcher(HttpMethod.POST, SpringSecurityConfig.INTROSPECTION_ROUTE);
+
     @Autowired
     private JwtUtils jwtUtils;
     @Autowired
     private CustomUserDetailService userDetailsService;
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return PUBLIC_ROUTES.matches(request) && !INTROSPECTION_ROUTE.matches(request);
+    }
+
     @Override
     protected void doFilterInternal(
             HttpServletRequest request,
@@ -28,14 +47,14 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwt(jwt)) {
-                String username = jwtUtils.getUsernameFromToken(jwt);
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            Claims claims = jwt != null ? jwtUtils.parseClaims(jwt) : null;
+            if (claims != null && !tokenRevocationService.isRevoked(claims.getId())) {
+                UserDetails userDetails = userDetailsService.loadUserFromClaims(claims);
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(
                                 userDetails,
                                 null,
-                                userDetails.getAuthorities()
+                                userDetailsService.getAuthoritiesFromClaims(claims, userDetails)
                         );
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authentication);
@@ -53,4 +72,4 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         }
         return null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,36 @@
+package com.openclassrooms.etudiant.configuration.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+/**
+ * Picks the highest BCrypt strength whose hashing time stays under the target latency on this machine.
+ * Each extra strength doubles the work, so only the lowest strength is measured.
+ */
+@Slf4j
+public final class BCryptStrengthCalibrator {
+    private static final String SAMPLE_PASSWORD = "calibration-password";
+
+    private BCryptStrengthCalibrator() {
+    }
+
+    public static int calibrate(Duration targetLatency, int minStrength, int maxStrength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(minStrength);
+        encoder.encode(SAMPLE_PASSWORD);
+        long start = System.nanoTime();
+        encoder.encode(SAMPLE_PASSWORD);
+        long elapsedNanos = System.nanoTime() - start;
+
+        int strength = minStrength;
+        long target = targetLatency.toNanos();
+        while (strength < maxStrength && elapsedNanos * 2 <= target) {
+            strength++;
+            elapsedNanos *= 2;
+        }
+        log.info("BCrypt strength calibrated to {} (~{} ms per hash, target {} ms)",
+                strength, elapsedNanos / 1_000_000, targetLatency.toMillis());
+        return strength;
+    }
+}
@@ -1,22 +1,74 @@
 package com.openclassrooms.etudiant.configuration.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.openclassrooms.etudiant.entities.User;
 import com.openclassrooms.etudiant.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
 @Service
-@RequiredArgsConstructor
 public class CustomUserDetailService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final Cache<String, User> users;
+
+    public CustomUserDetailService(UserRepository userRepository,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${security.user-cache.max-size:10000}") long maxSize,
+                                   @Value("${security.user-cache.ttl:5m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "security.users");
+    }
 
     @Override
     public UserDetails loadUserByUsername(String login) throws UsernameNotFoundException {
-        return userRepository.findByLogin(login)
-                .orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + login));
+        return users.get(login, key -> userRepository.findByLogin(key)
+                .orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + key)));
+    }
+
+    /**
+     * Builds the principal from the signed claims without touching the database.
+     * Tokens issued before the user id was added to the claims fall back to the cached lookup.
+     */
+    public UserDetails loadUserFromClaims(Claims claims) {
+        Number userId = claims.get(JwtUtils.CLAIM_USER_ID, Number.class);
+        if (userId == null) {
+            return loadUserByUsername(claims.getSubject());
+        }
+        User user = new User();
+        user.setId(userId.longValue());
+        user.setLogin(claims.getSubject());
+        return user;
+    }
+
+    public Collection<? extends GrantedAuthority> getAuthoritiesFromClaims(Claims claims, UserDetails userDetails) {
+        List<?> authorities = claims.get(JwtUtils.CLAIM_AUTHORITIES, List.class);
+        if (authorities == null) {
+            return userDetails.getAuthorities();
+        }
+        return authorities.stream().map(authority -> new SimpleGrantedAuthority(authority.toString())).toList();
+    }
+
+    public void evict(String login) {
+        users.invalidate(login);
     }
 
 }
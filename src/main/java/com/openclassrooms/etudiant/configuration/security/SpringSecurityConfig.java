@@ -1,9 +1,15 @@
 package com.openclassrooms.etudiant.configuration.security;
 
+import com.openclassrooms.etudiant.entities.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -16,17 +22,25 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.time.Duration;
+
 @Configuration
 @EnableWebSecurity
 public class SpringSecurityConfig {
 
+    // No auth needed on these routes, AuthTokenFilter skips them too.
+    public static final String[] PUBLIC_ROUTES = {"/actuator/**", "/api/register", "/api/login", "/api/refresh", "/api/logout", "/api/auth/**"};
+
+    // Batch introspection, under the public /api/auth routes but only for authenticated clients.
+    public static final String INTROSPECTION_ROUTE = "/api/auth/introspect";
+
     @Autowired
     private CustomUserDetailService customUserDetailService;
 
     @Bean
-    public DaoAuthenticationProvider authenticationProvider() {
+    public DaoAuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider(customUserDetailService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
         return authProvider;
     }
 
@@ -35,28 +49,70 @@ public class SpringSecurityConfig {
         return new AuthTokenFilter();
     }
 
+    // The filter only runs inside the security chain, not a second time as a plain servlet filter.
+    @Bean
+    public FilterRegistrationBean<AuthTokenFilter> authenticationJwtFilterRegistration(AuthTokenFilter authTokenFilter) {
+        FilterRegistrationBean<AuthTokenFilter> registration = new FilterRegistrationBean<>(authTokenFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    @Bean
+    public AuthRateLimitFilter authRateLimitFilter(MeterRegistry meterRegistry,
+                                                   @Value("${security.rate-limit.client.capacity:20}") int clientCapacity,
+                                                   @Value("${security.rate-limit.client.refill-period:1m}") Duration clientRefillPeriod,
+                                                   @Value("${security.rate-limit.login.capacity:5}") int loginCapacity,
+                                                   @Value("${security.rate-limit.login.refill-period:1m}") Duration loginRefillPeriod,
+                                                   @Value("${security.rate-limit.introspection.capacity:60}") int introspectionCapacity,
+                                                   @Value("${security.rate-limit.introspection.refill-period:1m}") Duration introspectionRefillPeriod,
+                                                   @Value("${security.rate-limit.max-keys:100000}") long maxKeys,
+                                                   @Value("${security.rate-limit.max-concurrent-hashing:32}") int maxConcurrentHashing) {
+        return new AuthRateLimitFilter(
+                new TokenBucketRateLimiter(clientCapacity, clientRefillPeriod, maxKeys),
+                new TokenBucketRateLimiter(loginCapacity, loginRefillPeriod, maxKeys),
+                new TokenBucketRateLimiter(introspectionCapacity, introspectionRefillPeriod, maxKeys),
+                maxConcurrentHashing,
+                meterRegistry);
+    }
+
+    @Bean
+    public FilterRegistrationBean<AuthRateLimitFilter> authRateLimitFilterRegistration(AuthRateLimitFilter authRateLimitFilter) {
+        FilterRegistrationBean<AuthRateLimitFilter> registration = new FilterRegistrationBean<>(authRateLimitFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
     @Bean
     public AuthenticationManager authenticationManager(AuthenticationConfiguration authConfig) throws Exception {
         return authConfig.getAuthenticationManager();
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.password.bcrypt.strength:0}") int strength,
+                                           @Value("${security.password.bcrypt.target-latency:250ms}") Duration targetLatency,
+                                           @Value("${security.password.bcrypt.min-strength:10}") int minStrength,
+                                           @Value("${security.password.bcrypt.max-strength:16}") int maxStrength) {
+        if (strength <= 0) {
+            strength = BCryptStrengthCalibrator.calibrate(targetLatency, minStrength, maxStrength);
+        }
+        return new BCryptPasswordEncoder(strength);
     }
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   DaoAuthenticationProvider authenticationProvider,
+                                                   AuthRateLimitFilter authRateLimitFilter) throws Exception {
         http
                 .cors(AbstractHttpConfigurer::disable)
                 .csrf(AbstractHttpConfigurer::disable)
                 .sessionManagement(management -> management.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-                .authenticationProvider(authenticationProvider())
+                .authenticationProvider(authenticationProvider)
                 .authorizeHttpRequests(authorize -> authorize
-                        // No auth needed on :
-                        .requestMatchers("/actuator/**").permitAll()
-                        .requestMatchers("/api/register", "/api/login").permitAll()
-                        .requestMatchers("/api/auth/**").permitAll()
+                        .requestMatchers(HttpMethod.POST, INTROSPECTION_ROUTE).authenticated()
+                        .requestMatchers(PUBLIC_ROUTES).permitAll()
+                        // Streamed responses complete in an async dispatch of an already authorized request.
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        .requestMatchers("/api/admin/**").hasRole(User.Role.ADMIN.name())
                         // Others protected routes will be added here.
                         .anyRequest().authenticated()
                 )
@@ -65,6 +121,7 @@ public class SpringSecurityConfig {
                         (request, response, exception)
                                 -> response.sendError(HttpServletResponse.SC_UNAUTHORIZED, exception.getMessage())));
         http.addFilterBefore(authenticationJwtFilter(), UsernamePasswordAuthenticationFilter.class);
+        http.addFilterBefore(authRateLimitFilter, AuthTokenFilter.class);
         return http.build();
     }
 
@@ -0,0 +1,61 @@
+package com.openclassrooms.etudiant.configuration.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket keyed by an arbitrary string, implemented as a generic cell rate algorithm:
+ * each key only stores the theoretical arrival time of its next request in an AtomicLong,
+ * updated with a CAS, so checks are lock-free and allocation-free once the key exists.
+ * Keys idle for longer than a full refill are evicted, and the number of keys is bounded.
+ */
+public class TokenBucketRateLimiter {
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final Ticker ticker;
+    private final Cache<String, AtomicLong> buckets;
+
+    public TokenBucketRateLimiter(int capacity, Duration refillPeriod, long maxKeys) {
+        this(capacity, refillPeriod, maxKeys, Ticker.systemTicker());
+    }
+
+    TokenBucketRateLimiter(int capacity, Duration refillPeriod, long maxKeys, Ticker ticker) {
+        this.emissionIntervalNanos = refillPeriod.toNanos() / capacity;
+        this.burstToleranceNanos = emissionIntervalNanos * capacity;
+        this.ticker = ticker;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(refillPeriod)
+                .ticker(ticker)
+                .build();
+    }
+
+    /**
+     * Takes one token for the key.
+     *
+     * @return 0 when the request is allowed, otherwise the number of nanoseconds before a token is available
+     */
+    public long tryAcquire(String key) {
+        AtomicLong theoreticalArrival = buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+        long now = ticker.read();
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, now) + emissionIntervalNanos;
+            long allowedAt = next - burstToleranceNanos;
+            if (allowedAt > now) {
+                return allowedAt - now;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    public long size() {
+        return buckets.estimatedSize();
+    }
+}
@@ -0,0 +1,30 @@
+package com.openclassrooms.etudiant.controller;
+
+import com.openclassrooms.etudiant.service.StudentDtoCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping
+@RequiredArgsConstructor
+public class AdminController {
+    private final StudentDtoCache studentDtoCache;
+
+    @GetMapping("/api/admin/cache/students")
+    public ResponseEntity<?> getStudentCacheStats(){
+        return ResponseEntity.ok(studentDtoCache.stats());
+    }
+
+    @DeleteMapping("/api/admin/cache/students")
+    public ResponseEntity<?> flushStudentCache(){
+        studentDtoCache.invalidateAll();
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/api/admin/cache/students/{studentNum}")
+    public ResponseEntity<?> evictStudent(@PathVariable String studentNum){
+        studentDtoCache.invalidate(studentNum);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,19 +1,45 @@
 package com.openclassrooms.etudiant.controller;
 
-import com.openclassrooms.etudiant.configuration.security.JwtUtils;
-import lombok.RequiredArgsConstructor;
+import com.openclassrooms.etudiant.dto.IntrospectionRequestDTO;
+import com.openclassrooms.etudiant.dto.TokenIntrospectionDTO;
+import com.openclassrooms.etudiant.service.TokenIntrospectionService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
+import java.time.Instant;
+
 @RestController
 @RequestMapping
-@RequiredArgsConstructor
 public class JwtController {
-    private final JwtUtils jwtUtils;
+    private final TokenIntrospectionService tokenIntrospectionService;
+    private final Duration maxAge;
+
+    public JwtController(TokenIntrospectionService tokenIntrospectionService,
+                         @Value("${jwt.introspection.max-age:30s}") Duration maxAge) {
+        this.tokenIntrospectionService = tokenIntrospectionService;
+        this.maxAge = maxAge;
+    }
 
+    // A valid answer may be cached until the token expires, bounded so that revocations are seen quickly.
     @GetMapping("/api/auth/{token}")
     public ResponseEntity<?> isAuthTokenCorrect(@PathVariable String token){
-        boolean jwtIsCorrect = jwtUtils.validateJwt(token);
-        return ResponseEntity.ok(jwtIsCorrect);
+        TokenIntrospectionDTO introspection = tokenIntrospectionService.introspect(token);
+        Duration cacheFor = maxAge;
+        if (introspection.isActive() && introspection.getExp() != null) {
+            Duration remaining = Duration.between(Instant.now(), Instant.ofEpochSecond(introspection.getExp()));
+            cacheFor = remaining.compareTo(maxAge) < 0 ? remaining : maxAge;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(cacheFor.isNegative() ? Duration.ZERO : cacheFor).cachePrivate())
+                .body(introspection.isActive());
+    }
+
+    @PostMapping("/api/auth/introspect")
+    public ResponseEntity<?> introspect(@Valid @RequestBody IntrospectionRequestDTO introspectionRequestDTO){
+        return ResponseEntity.ok(tokenIntrospectionService.introspectAll(introspectionRequestDTO.getTokens()));
     }
 }
@@ -0,0 +1,41 @@
+package com.openclassrooms.etudiant.controller;
+
+import com.openclassrooms.etudiant.dto.StudentChangeDTO;
+import com.openclassrooms.etudiant.dto.StudentChangePageDTO;
+import com.openclassrooms.etudiant.mapper.StudentChangeMapper;
+import com.openclassrooms.etudiant.service.StudentChangeFeed;
+import com.openclassrooms.etudiant.service.StudentChangeLog;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@RestController
+@RequestMapping
+@RequiredArgsConstructor
+public class StudentChangeController {
+
+    private final StudentChangeLog studentChangeLog;
+    private final StudentChangeFeed studentChangeFeed;
+    private final StudentChangeMapper studentChangeMapper;
+
+    @GetMapping("/api/student/changes")
+    public ResponseEntity<?> getChanges(@RequestParam(defaultValue = "0") long since,
+                                        @RequestParam(defaultValue = "100") int size){
+        List<StudentChangeDTO> changes = studentChangeLog.read(since, size).stream()
+                .map(studentChangeMapper::toDto)
+                .toList();
+        long next = changes.isEmpty() ? since : changes.get(changes.size() - 1).getSequence();
+        return ResponseEntity.ok(new StudentChangePageDTO(changes, next));
+    }
+
+    // Resumes from the since parameter, else from the Last-Event-ID an EventSource sends when it reconnects.
+    @GetMapping(value = "/api/student/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) Long since,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId){
+        return studentChangeFeed.subscribe(since != null ? since : lastEventId);
+    }
+}
@@ -1,17 +1,48 @@
 package com.openclassrooms.etudiant.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.openclassrooms.etudiant.dto.StudentDTO;
-import com.openclassrooms.etudiant.entities.Student;
+import com.openclassrooms.etudiant.dto.StudentDeleteRequestDTO;
+import com.openclassrooms.etudiant.dto.StudentPageDTO;
+import com.openclassrooms.etudiant.dto.StudentSearchDTO;
 import com.openclassrooms.etudiant.mapper.StudentDtoMapper;
-import com.openclassrooms.etudiant.repository.StudentRepository;
+import com.openclassrooms.etudiant.repository.StudentTableVersion;
+import com.openclassrooms.etudiant.repository.StudentVersion;
+import com.openclassrooms.etudiant.service.CachedStudent;
+import com.openclassrooms.etudiant.service.StudentBatchService;
+import com.openclassrooms.etudiant.service.StudentBulkDeleteService;
+import com.openclassrooms.etudiant.service.StudentDtoCache;
+import com.openclassrooms.etudiant.service.StudentExportService;
+import com.openclassrooms.etudiant.service.StudentField;
+import com.openclassrooms.etudiant.service.StudentIfMatch;
+import com.openclassrooms.etudiant.service.StudentPage;
 import com.openclassrooms.etudiant.service.StudentService;
+import com.openclassrooms.etudiant.service.StudentSort;
+import com.openclassrooms.etudiant.service.StudentSuggestIndex;
+import com.openclassrooms.etudiant.service.StudentUpsert;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Objects;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping
@@ -20,20 +51,115 @@ public class StudentController {
 
     private final StudentService studentService;
     private final StudentDtoMapper studentDtoMapper;
-    private final StudentRepository studentRepository;
+    private final StudentExportService studentExportService;
+    private final StudentSuggestIndex studentSuggestIndex;
+    private final StudentDtoCache studentDtoCache;
+    private final StudentBatchService studentBatchService;
+    private final StudentBulkDeleteService studentBulkDeleteService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/api/student")
-    public ResponseEntity<?> getAllStudents(){
-        List<Student> students = studentService.getStudentsList();
-        return ResponseEntity.ok(students.stream()
-                .map(studentDtoMapper::toDto)
-                .toList());
+    public ResponseEntity<?> getAllStudents(@RequestParam(defaultValue = "studentNumber") String sort,
+                                            @RequestParam(defaultValue = "asc") String direction,
+                                            @RequestParam(required = false) Integer size,
+                                            @RequestParam(required = false) String cursor,
+                                            @RequestParam(required = false) String fields,
+                                            WebRequest webRequest){
+        Set<StudentField> studentFields = fields != null ? StudentField.parse(fields) : null;
+        // Deletions do not move max(updated_at), so the collection only gets an ETag, not a Last-Modified.
+        StudentTableVersion version = studentService.getTableVersion();
+        String etag = "W/\"" + version.getCount() + "-"
+                + (version.getLastUpdate() != null
+                        ? ChronoUnit.MICROS.between(Instant.EPOCH, version.getLastUpdate().atZone(ZoneId.systemDefault()).toInstant())
+                        : 0)
+                + "-" + Integer.toHexString(Objects.hash(sort, direction, size, cursor, fields)) + "\"";
+        if(webRequest.checkNotModified(etag)){
+            return null;
+        }
+        StudentSort studentSort = StudentSort.fromProperty(sort);
+        Sort.Direction sortDirection = Sort.Direction.fromString(direction);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT)
+                .eTag(etag);
+        if(studentFields != null){
+            return response.body(toPageDto(studentService.getStudentsPage(studentFields,
+                    studentSort, sortDirection, size, cursor)));
+        }
+        return response.body(toPageDto(studentService.getStudentsPage(studentSort, sortDirection, size, cursor)));
+    }
+
+    @GetMapping("/api/student/search")
+    public ResponseEntity<?> searchStudents(StudentSearchDTO studentSearchDTO,
+                                            @RequestParam(defaultValue = "studentNumber") String sort,
+                                            @RequestParam(defaultValue = "asc") String direction,
+                                            @RequestParam(required = false) Integer size,
+                                            @RequestParam(required = false) String cursor,
+                                            @RequestParam(required = false) String fields){
+        StudentSort studentSort = StudentSort.fromProperty(sort);
+        Sort.Direction sortDirection = Sort.Direction.fromString(direction);
+        if(fields != null){
+            return ResponseEntity.ok(toPageDto(studentService.searchStudents(studentSearchDTO, StudentField.parse(fields),
+                    studentSort, sortDirection, size, cursor)));
+        }
+        return ResponseEntity.ok(toPageDto(studentService.searchStudents(studentSearchDTO, studentSort, sortDirection, size, cursor)));
+    }
+
+    @GetMapping("/api/student/suggest")
+    public ResponseEntity<?> suggestStudents(@RequestParam String q,
+                                             @RequestParam(defaultValue = "10") int limit){
+        return ResponseEntity.ok(studentSuggestIndex.suggest(q, limit));
+    }
+
+    @GetMapping("/api/student/export")
+    public ResponseEntity<StreamingResponseBody> exportStudents(@RequestParam(defaultValue = "ndjson") String format,
+                                                                @RequestParam(required = false) String after,
+                                                                @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding){
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if(!csv && !"ndjson".equalsIgnoreCase(format)){
+            throw new IllegalArgumentException("Unsupported export format " + format);
+        }
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        StreamingResponseBody body = outputStream -> {
+            try (OutputStream out = gzip ? new GZIPOutputStream(outputStream, 8192) : outputStream) {
+                if(csv){
+                    studentExportService.exportCsv(after, out);
+                } else {
+                    studentExportService.exportNdjson(after, out);
+                }
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if(gzip){
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
     }
 
     @GetMapping("/api/student/{studentNum}")
-    public ResponseEntity<?> getStudent(@PathVariable String studentNum){
-        Student student = studentService.getStudentByStudentNum(studentNum);
-        return ResponseEntity.ok(studentDtoMapper.toDto(student));
+    public ResponseEntity<?> getStudent(@PathVariable String studentNum, WebRequest webRequest){
+        CachedStudent student = studentDtoCache.get(studentNum);
+        if(student.getLastModified() == null){
+            if(webRequest.checkNotModified(student.getEtag())){
+                return null;
+            }
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache())
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .eTag(student.getEtag())
+                    .body(student.getStudent());
+        }
+        if(webRequest.checkNotModified(student.getEtag(), student.getLastModified().toEpochMilli())){
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT)
+                .eTag(student.getEtag())
+                .lastModified(student.getLastModified())
+                .body(student.getStudent());
     }
 
     @PostMapping("/api/student")
@@ -47,27 +173,67 @@ public class StudentController {
                 .build();
     }
 
+    @PostMapping("/api/student/batch")
+    public ResponseEntity<?> createStudents(@RequestBody List<StudentDTO> studentDTOs){
+        return ResponseEntity.ok(studentBatchService.createStudents(studentDTOs));
+    }
+
+    @PostMapping("/api/student/batch/delete")
+    public ResponseEntity<?> deleteStudents(@RequestBody StudentDeleteRequestDTO studentDeleteRequestDTO){
+        return ResponseEntity.ok(studentBulkDeleteService.deleteStudents(studentDeleteRequestDTO));
+    }
+
     @PutMapping("/api/student/{studentNum}")
-    public ResponseEntity<?> updateStudent(@PathVariable String studentNum, @RequestBody StudentDTO studentDTO){
-        Optional<Student> student = studentRepository.findByStudentNumber(studentNum);
-        if(student.isPresent()){
-            studentService.updateStudent(student.get(), studentDtoMapper.toEntity(studentDTO));
-            return ResponseEntity.ok(studentDtoMapper.toDto(studentService.getStudentByStudentNum(studentNum)));
-        } else {
-            studentService.createStudent(studentDtoMapper.toEntity(studentDTO));
-            return ResponseEntity.created(
-                    UriComponentsBuilder.fromPath("/api/student/{studentNum}")
-                            .encode()
-                            .buildAndExpand(studentNum)
-                            .toUri())
-                    .build();
+    public ResponseEntity<?> updateStudent(@PathVariable String studentNum,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                           @RequestBody StudentDTO studentDTO){
+        StudentUpsert upsert = studentService.upsertStudent(studentNum, studentDtoMapper.toEntity(studentDTO), StudentIfMatch.parse(ifMatch));
+        StudentDTO student = studentDtoMapper.toDto(upsert.getStudent());
+        String etag = StudentIfMatch.etag(upsert.getStudent().getId(), upsert.getStudent().getVersion());
+        if(!upsert.isCreated()){
+            return ResponseEntity.ok().eTag(etag).body(student);
         }
+        return ResponseEntity.created(
+                UriComponentsBuilder.fromPath("/api/student/{studentNum}")
+                        .encode()
+                        .buildAndExpand(studentNum)
+                        .toUri())
+                .eTag(etag)
+                .body(student);
+    }
+
+    // RFC 7396: the members of the patch replace those of the student, null removing them.
+    @PatchMapping(value = "/api/student/{studentNum}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<?> patchStudent(@PathVariable String studentNum,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                          @RequestBody JsonNode patch){
+        if(!patch.isObject()){
+            throw new IllegalArgumentException("A student patch must be a JSON object");
+        }
+        Set<StudentField> fields = new LinkedHashSet<>();
+        patch.fieldNames().forEachRemaining(property -> fields.add(StudentField.fromProperty(property)));
+        StudentDTO studentDTO;
+        try {
+            studentDTO = objectMapper.treeToValue(patch, StudentDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid student patch: " + e.getOriginalMessage());
+        }
+        StudentVersion version = studentService.patchStudent(studentNum, fields, studentDtoMapper.toEntity(studentDTO), StudentIfMatch.parse(ifMatch));
+        if(version == null){
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.noContent().eTag(StudentIfMatch.etag(version)).build();
     }
 
     @DeleteMapping("/api/student/{studentNum}")
-    public ResponseEntity<?> deleteStudent(@PathVariable String studentNum){
-        studentService.deleteStudent(studentNum);
+    public ResponseEntity<?> deleteStudent(@PathVariable String studentNum,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        studentService.deleteStudent(studentNum, StudentIfMatch.parse(ifMatch));
         return ResponseEntity.ok(studentNum);
     }
 
+    // Students come mapped by the service, projected rows are already keyed by DTO property: both are serialized as they are.
+    private <T> StudentPageDTO<T> toPageDto(StudentPage<T> page){
+        return new StudentPageDTO<>(page.getContent(), page.getNext(), page.getPrevious());
+    }
 }
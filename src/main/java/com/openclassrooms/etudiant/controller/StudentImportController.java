@@ -0,0 +1,59 @@
+package com.openclassrooms.etudiant.controller;
+
+import com.openclassrooms.etudiant.entities.StudentImportJob;
+import com.openclassrooms.etudiant.mapper.StudentImportMapper;
+import com.openclassrooms.etudiant.service.StudentImportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+
+@RestController
+@RequestMapping
+@RequiredArgsConstructor
+public class StudentImportController {
+
+    private final StudentImportService studentImportService;
+    private final StudentImportMapper studentImportMapper;
+
+    // The file is sent as the raw request body, read as a stream.
+    @PostMapping("/api/student/import")
+    public ResponseEntity<?> importStudents(@RequestParam(defaultValue = "csv") String format, InputStream body) throws IOException {
+        StudentImportJob job = studentImportService.start(format, body);
+        return ResponseEntity.accepted()
+                .location(jobUri(job))
+                .body(studentImportMapper.toDto(job));
+    }
+
+    @GetMapping("/api/student/import/{jobId}")
+    public ResponseEntity<?> getImport(@PathVariable String jobId){
+        return ResponseEntity.ok(studentImportMapper.toDto(studentImportService.getJob(jobId)));
+    }
+
+    @GetMapping("/api/student/import/{jobId}/errors")
+    public ResponseEntity<?> getImportErrors(@PathVariable String jobId,
+                                             @RequestParam(defaultValue = "0") long after,
+                                             @RequestParam(defaultValue = "100") int size){
+        return ResponseEntity.ok(studentImportService.getErrors(jobId, after, size).stream()
+                .map(studentImportMapper::toDto)
+                .toList());
+    }
+
+    @PostMapping("/api/student/import/{jobId}/resume")
+    public ResponseEntity<?> resumeImport(@PathVariable String jobId){
+        StudentImportJob job = studentImportService.resume(jobId);
+        return ResponseEntity.accepted()
+                .location(jobUri(job))
+                .body(studentImportMapper.toDto(job));
+    }
+
+    private static URI jobUri(StudentImportJob job){
+        return UriComponentsBuilder.fromPath("/api/student/import/{jobId}")
+                .buildAndExpand(job.getId())
+                .toUri();
+    }
+}
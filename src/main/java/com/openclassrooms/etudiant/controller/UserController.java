@@ -1,25 +1,30 @@
 package com.openclassrooms.etudiant.controller;
 
+import com.openclassrooms.etudiant.dto.AuthTokensDTO;
 import com.openclassrooms.etudiant.dto.LoginRequestDTO;
 import com.openclassrooms.etudiant.dto.RegisterDTO;
 import com.openclassrooms.etudiant.mapper.UserDtoMapper;
+import com.openclassrooms.etudiant.service.RefreshTokenService;
 import com.openclassrooms.etudiant.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseCookie;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
 
 @RestController
 @RequestMapping
 @RequiredArgsConstructor
 public class UserController {
+    private static final String REFRESH_TOKEN_COOKIE = "refresh_token";
 
     private final UserService userService;
     private final UserDtoMapper userDtoMapper;
+    private final RefreshTokenService refreshTokenService;
 
 
     @PostMapping("/api/register")
@@ -30,9 +35,40 @@ public class UserController {
 
     @PostMapping("/api/login")
     public ResponseEntity<?> login(LoginRequestDTO loginRequestDTO) {
-        String jwt = userService.login(loginRequestDTO.getLogin(), loginRequestDTO.getPassword());
-        return ResponseEntity.ok(jwt);
+        AuthTokensDTO tokens = userService.loginWithRefreshToken(loginRequestDTO.getLogin(), loginRequestDTO.getPassword());
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, refreshTokenCookie(tokens.getRefreshToken(), refreshTokenService.getRefreshExpiration()))
+                .body(tokens.getAccessToken());
     }
 
+    @PostMapping("/api/refresh")
+    public ResponseEntity<?> refresh(@CookieValue(name = REFRESH_TOKEN_COOKIE, required = false) String cookieToken,
+                                     @RequestParam(name = "refreshToken", required = false) String paramToken) {
+        AuthTokensDTO tokens = refreshTokenService.rotate(cookieToken != null ? cookieToken : paramToken);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, refreshTokenCookie(tokens.getRefreshToken(), refreshTokenService.getRefreshExpiration()))
+                .body(tokens.getAccessToken());
+    }
 
+    @PostMapping("/api/logout")
+    public ResponseEntity<?> logout(@RequestHeader(name = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                    @CookieValue(name = REFRESH_TOKEN_COOKIE, required = false) String cookieToken,
+                                    @RequestParam(name = "refreshToken", required = false) String paramToken) {
+        String accessToken = authorization != null && authorization.startsWith("Bearer ") ? authorization.substring(7) : null;
+        userService.logout(accessToken, cookieToken != null ? cookieToken : paramToken);
+        return ResponseEntity.noContent()
+                .header(HttpHeaders.SET_COOKIE, refreshTokenCookie("", Duration.ZERO))
+                .build();
+    }
+
+    private static String refreshTokenCookie(String value, Duration maxAge) {
+        return ResponseCookie.from(REFRESH_TOKEN_COOKIE, value)
+                .httpOnly(true)
+                .secure(true)
+                .sameSite("Strict")
+                .path("/api")
+                .maxAge(maxAge)
+                .build()
+                .toString();
+    }
 }
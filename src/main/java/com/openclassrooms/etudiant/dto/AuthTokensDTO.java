@@ -0,0 +1,13 @@
+package com.openclassrooms.etudiant.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuthTokensDTO {
+    private String accessToken;
+    private String refreshToken;
+}
@@ -0,0 +1,13 @@
+package com.openclassrooms.etudiant.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class IntrospectionRequestDTO {
+    @NotNull
+    private List<String> tokens;
+
+}
@@ -0,0 +1,22 @@
+package com.openclassrooms.etudiant.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StudentBatchItemDTO {
+    public enum Status {
+        CREATED, REJECTED
+    }
+
+    // Position of the student in the submitted array.
+    private int index;
+    private String studentNumber;
+    private Status status;
+    private String message;
+}
@@ -0,0 +1,16 @@
+package com.openclassrooms.etudiant.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentBatchResultDTO {
+    private int created;
+    private int rejected;
+    private List<StudentBatchItemDTO> items;
+}
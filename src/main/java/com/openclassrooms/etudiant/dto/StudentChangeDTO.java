@@ -0,0 +1,13 @@
+package com.openclassrooms.etudiant.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class StudentChangeDTO {
+    private long sequence;
+    private String type;
+    private String studentNumber;
+    private LocalDateTime changedAt;
+}
@@ -0,0 +1,19 @@
+package com.openclassrooms.etudiant.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Changes that follow the requested sequence, in order. next is the sequence to ask for the following ones,
+ * the same as requested when there is nothing new yet.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentChangePageDTO {
+    private List<StudentChangeDTO> changes;
+    private long next;
+}
@@ -0,0 +1,16 @@
+package com.openclassrooms.etudiant.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Students to delete: either the listed student numbers, or every student whose subscription ended
+ * before the given date.
+ */
+@Data
+public class StudentDeleteRequestDTO {
+    private List<String> studentNumbers;
+    private LocalDate subscribeEndBefore;
+}
@@ -0,0 +1,14 @@
+package com.openclassrooms.etudiant.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentImportErrorDTO {
+    private long recordNumber;
+    private String studentNumber;
+    private String message;
+}
@@ -0,0 +1,26 @@
+package com.openclassrooms.etudiant.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StudentImportJobDTO {
+    private String id;
+    private String format;
+    private String status;
+    private long fileSize;
+    private long bytesRead;
+    private long recordCount;
+    private long createdCount;
+    private long rejectedCount;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,20 @@
+package com.openclassrooms.etudiant.dto;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+@Data
+public class StudentSearchDTO {
+    private String lastName;
+    private String firstName;
+    private String email;
+    private String phoneNumber;
+    @DateTimeFormat(pattern = "dd/MM/yyyy")
+    private LocalDate bornAfter;
+    @DateTimeFormat(pattern = "dd/MM/yyyy")
+    private LocalDate bornBefore;
+    @DateTimeFormat(pattern = "dd/MM/yyyy")
+    private LocalDate activeOn;
+}
@@ -0,0 +1,16 @@
+package com.openclassrooms.etudiant.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentSuggestionDTO {
+    private String studentNumber;
+    private String firstName;
+    private String lastName;
+    private String email;
+    private double score;
+}
@@ -0,0 +1,17 @@
+package com.openclassrooms.etudiant.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TokenIntrospectionDTO {
+    private boolean active;
+    private String subject;
+    // Expiry in seconds since the epoch, as in RFC 7662.
+    private Long exp;
+}
@@ -0,0 +1,30 @@
+package com.openclassrooms.etudiant.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Single row the primary keeps stamping with the current time. A replica is as far behind as its copy of the
+ * stamp is old. Only written when replicas are configured.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Entity
+@Table(name = "replica_heartbeat")
+public class ReplicaHeartbeat {
+    @Id
+    @Column(name = "id")
+    private Integer id;
+
+    // UTC, so that the stamp compares with the clock of a replica in another time zone.
+    @Column(name = "beat", nullable = false)
+    private LocalDateTime beat;
+}
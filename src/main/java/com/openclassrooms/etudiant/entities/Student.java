@@ -6,7 +6,9 @@ import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDate;
@@ -15,9 +17,21 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Data
+// Updates only write the columns that changed, which keeps the binlog and the row images small.
+@DynamicUpdate
 @Entity
 @Table(name = "student", uniqueConstraints =
-        @UniqueConstraint(columnNames = "studentNum"))
+        @UniqueConstraint(columnNames = "studentNum"), indexes = {
+        @Index(name = "idx_student_last_name", columnList = "lastName"),
+        @Index(name = "idx_student_sub_end", columnList = "subEnd"),
+        @Index(name = "idx_student_last_name_first_name", columnList = "lastName, firstName"),
+        @Index(name = "idx_student_first_name_last_name", columnList = "firstName, lastName"),
+        @Index(name = "idx_student_email", columnList = "email"),
+        @Index(name = "idx_student_phone_num", columnList = "phoneNum"),
+        @Index(name = "idx_student_birth_date", columnList = "birthDate"),
+        @Index(name = "idx_student_subscription", columnList = "subEnd, subStart"),
+        @Index(name = "idx_student_updated_at", columnList = "updated_at")
+})
 public class Student {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -52,6 +66,12 @@ public class Student {
     @Column(name = "subEnd")
     private LocalDate subscribeEnd;
 
+    // The default fills the column of the rows that existed before it, and of JDBC batch inserts.
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @CreationTimestamp
     @Column(name = "created_at")
     private LocalDateTime created_at;
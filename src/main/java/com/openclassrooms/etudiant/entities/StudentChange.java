@@ -0,0 +1,38 @@
+package com.openclassrooms.etudiant.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the append-only log of the student changes. The id is the sequence consumers resume from.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Entity
+@Table(name = "student_change", indexes =
+        @Index(name = "idx_student_change_changed_at", columnList = "changedAt"))
+public class StudentChange {
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false, length = 10)
+    private Type type;
+
+    @Column(name = "studentNum", nullable = false)
+    private String studentNumber;
+
+    @Column(name = "changedAt", nullable = false)
+    private LocalDateTime changedAt;
+}
@@ -0,0 +1,36 @@
+package com.openclassrooms.etudiant.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Entity
+@Table(name = "student_import_error", indexes =
+        @Index(name = "idx_student_import_error_job_record", columnList = "job_id, recordNumber"))
+public class StudentImportError {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JoinColumn(name = "job_id", nullable = false)
+    private StudentImportJob job;
+
+    // Position of the record in the file, the header excluded, starting at 1.
+    @Column(name = "recordNumber", nullable = false)
+    private long recordNumber;
+
+    @Column(name = "studentNumber")
+    private String studentNumber;
+
+    @Column(name = "message", nullable = false, length = 1000)
+    private String message;
+}
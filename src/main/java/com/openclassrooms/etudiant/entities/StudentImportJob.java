@@ -0,0 +1,65 @@
+package com.openclassrooms.etudiant.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Entity
+@Table(name = "student_import_job")
+public class StudentImportJob {
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    @Id
+    @Column(name = "id", length = 36)
+    private String id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "format", nullable = false, length = 10)
+    private Format format;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 10)
+    private Status status;
+
+    @Column(name = "fileSize", nullable = false)
+    private long fileSize;
+
+    // Offset of the record that follows the last committed one, where a resumed job seeks to.
+    @Column(name = "bytesRead", nullable = false)
+    private long bytesRead;
+
+    // Records of the file already committed.
+    @Column(name = "recordCount", nullable = false)
+    private long recordCount;
+
+    @Column(name = "createdCount", nullable = false)
+    private long createdCount;
+
+    @Column(name = "rejectedCount", nullable = false)
+    private long rejectedCount;
+
+    @Column(name = "error", length = 1000)
+    private String error;
+
+    @CreationTimestamp
+    @Column(name = "created_at")
+    private LocalDateTime created_at;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updated_at;
+}
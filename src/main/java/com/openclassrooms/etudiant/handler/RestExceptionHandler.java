@@ -1,9 +1,15 @@
 package com.openclassrooms.etudiant.handler;
 
+import com.openclassrooms.etudiant.service.PreconditionFailedException;
+import com.openclassrooms.etudiant.service.PreconditionRequiredException;
+import com.openclassrooms.etudiant.service.StudentChangeExpiredException;
+import com.openclassrooms.etudiant.service.StudentIfMatch;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -12,6 +18,7 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
 
 import java.nio.file.AccessDeniedException;
 import java.time.LocalDateTime;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestControllerAdvice
 public class RestExceptionHandler extends ResponseEntityExceptionHandler {
@@ -43,6 +50,56 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
                 new HttpHeaders(), HttpStatus.FORBIDDEN, request);
     }
 
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ExceptionHandler(value = {RejectedExecutionException.class})
+    protected ResponseEntity<Object> handleRejectedExecutionException(RejectedExecutionException rejectedExecutionException,
+                                                                      WebRequest request) {
+        logError(rejectedExecutionException);
+        return handleExceptionInternal(rejectedExecutionException, getErrorDetails(rejectedExecutionException, request),
+                new HttpHeaders(), HttpStatus.SERVICE_UNAVAILABLE, request);
+    }
+
+    // No database connection could be had, in particular when the connection limiter turns the request away.
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ExceptionHandler(value = {CannotCreateTransactionException.class, DataAccessResourceFailureException.class})
+    protected ResponseEntity<Object> handleDatabaseUnavailableException(RuntimeException runtimeException, WebRequest request) {
+        logError(runtimeException);
+        // The message of a data access exception may reveal SQL.
+        ErrorDetails errorDetails = new ErrorDetails(LocalDateTime.now(), "Database is busy, try again later",
+                request.getDescription(false));
+        return handleExceptionInternal(runtimeException, errorDetails, new HttpHeaders(), HttpStatus.SERVICE_UNAVAILABLE, request);
+    }
+
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    @ExceptionHandler(value = {PreconditionFailedException.class})
+    protected ResponseEntity<Object> handlePreconditionFailedException(PreconditionFailedException preconditionFailedException,
+                                                                       WebRequest request) {
+        logger.info(preconditionFailedException.getMessage());
+        HttpHeaders headers = new HttpHeaders();
+        if (preconditionFailedException.getCurrentVersion() != null) {
+            headers.setETag(StudentIfMatch.etag(preconditionFailedException.getCurrentVersion()));
+        }
+        return handleExceptionInternal(preconditionFailedException, getErrorDetails(preconditionFailedException, request),
+                headers, HttpStatus.PRECONDITION_FAILED, request);
+    }
+
+    @ResponseStatus(HttpStatus.PRECONDITION_REQUIRED)
+    @ExceptionHandler(value = {PreconditionRequiredException.class})
+    protected ResponseEntity<Object> handlePreconditionRequiredException(PreconditionRequiredException preconditionRequiredException,
+                                                                         WebRequest request) {
+        logError(preconditionRequiredException);
+        return handleExceptionInternal(preconditionRequiredException, getErrorDetails(preconditionRequiredException, request),
+                new HttpHeaders(), HttpStatus.PRECONDITION_REQUIRED, request);
+    }
+
+    @ResponseStatus(HttpStatus.GONE)
+    @ExceptionHandler(value = {StudentChangeExpiredException.class})
+    protected ResponseEntity<Object> handleStudentChangeExpiredException(StudentChangeExpiredException studentChangeExpiredException,
+                                                                         WebRequest request) {
+        logger.info(studentChangeExpiredException.getMessage());
+        return handleExceptionInternal(studentChangeExpiredException, getErrorDetails(studentChangeExpiredException, request),
+                new HttpHeaders(), HttpStatus.GONE, request);
+    }
 
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     @ExceptionHandler(value = {Exception.class})
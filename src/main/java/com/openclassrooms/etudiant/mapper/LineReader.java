@@ -0,0 +1,101 @@
+package com.openclassrooms.etudiant.mapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads the UTF-8 lines of a stream, ended by \n or \r\n, and tracks the byte offset of the next line.
+ * Unlike a BufferedReader, whose source is read ahead, that offset is a record boundary a reader can seek to.
+ * Lines are bounded in length, so a file without line breaks cannot fill the memory.
+ */
+public class LineReader {
+    private final InputStream in;
+    private final byte[] buffer;
+    private final int maxLineBytes;
+    private byte[] pending = new byte[256];
+    private int next;
+    private int limit;
+    private long position;
+
+    /**
+     * @param position offset in the file of the first byte of the stream
+     * @param maxLineBytes longest line accepted, line break included
+     */
+    public LineReader(InputStream in, int bufferSize, long position, int maxLineBytes) {
+        this.in = in;
+        this.buffer = new byte[bufferSize];
+        this.position = position;
+        this.maxLineBytes = maxLineBytes;
+    }
+
+    /**
+     * Offset of the line the next {@link #readLine} returns.
+     */
+    public long position() {
+        return position;
+    }
+
+    public int maxLineBytes() {
+        return maxLineBytes;
+    }
+
+    /**
+     * Next line without its line break, or null at the end.
+     *
+     * @throws IllegalArgumentException if the line is longer than the maximum
+     */
+    public String readLine() throws IOException {
+        long start = position;
+        int length = 0;
+        while (true) {
+            if (next == limit) {
+                int read = in.read(buffer);
+                next = 0;
+                limit = Math.max(read, 0);
+                if (read < 0) {
+                    return length == 0 ? null : decode(pending, 0, length);
+                }
+            }
+            int end = next;
+            while (end < limit && buffer[end] != '\n') {
+                end++;
+            }
+            if ((long) length + end - next + (end < limit ? 1 : 0) > maxLineBytes) {
+                throw new IllegalArgumentException("Line at byte " + start + " is longer than " + maxLineBytes + " bytes");
+            }
+            position += end - next;
+            if (end < limit) {
+                position++;
+                String line;
+                if (length == 0) {
+                    line = decode(buffer, next, end - next);
+                } else {
+                    length = append(length, end);
+                    line = decode(pending, 0, length);
+                }
+                next = end + 1;
+                return line;
+            }
+            length = append(length, end);
+            next = limit;
+        }
+    }
+
+    private int append(int length, int end) {
+        int count = end - next;
+        if (length + count > pending.length) {
+            pending = Arrays.copyOf(pending, Math.max(length + count, pending.length * 2));
+        }
+        System.arraycopy(buffer, next, pending, length, count);
+        return length + count;
+    }
+
+    private static String decode(byte[] bytes, int offset, int length) {
+        if (length > 0 && bytes[offset + length - 1] == '\r') {
+            length--;
+        }
+        return new String(bytes, offset, length, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,14 @@
+package com.openclassrooms.etudiant.mapper;
+
+import com.openclassrooms.etudiant.dto.StudentChangeDTO;
+import com.openclassrooms.etudiant.entities.StudentChange;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.ReportingPolicy;
+
+@Mapper(componentModel = "spring",
+        unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface StudentChangeMapper {
+    @Mapping(target = "sequence", source = "id")
+    StudentChangeDTO toDto(StudentChange change);
+}
@@ -0,0 +1,187 @@
+package com.openclassrooms.etudiant.mapper;
+
+import com.openclassrooms.etudiant.dto.StudentDTO;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * CSV form of {@link StudentDTO} (RFC 4180), with the same date format as the JSON API. Records are read
+ * with the columns in any order, as long as the header names them.
+ */
+@Component
+public class StudentCsvMapper {
+    public static final String[] COLUMNS = {"studentNumber", "firstName", "lastName", "birthDate", "email",
+            "phoneNumber", "subscribeStart", "subscribeEnd"};
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    public void writeHeader(Writer writer) throws IOException {
+        writer.write(String.join(",", COLUMNS));
+        writer.write("\r\n");
+    }
+
+    public void write(Writer writer, StudentDTO student) throws IOException {
+        writeField(writer, student.getStudentNumber());
+        writer.write(',');
+        writeField(writer, student.getFirstName());
+        writer.write(',');
+        writeField(writer, student.getLastName());
+        writer.write(',');
+        writeField(writer, format(student.getBirthDate()));
+        writer.write(',');
+        writeField(writer, student.getEmail());
+        writer.write(',');
+        writeField(writer, student.getPhoneNumber());
+        writer.write(',');
+        writeField(writer, format(student.getSubscribeStart()));
+        writer.write(',');
+        writeField(writer, format(student.getSubscribeEnd()));
+        writer.write("\r\n");
+    }
+
+    /**
+     * Next record of the reader, without its line break, or null at the end. A record spans several lines
+     * while one of its quoted fields is open, within the line length limit of the reader.
+     */
+    public String readRecord(LineReader reader) throws IOException {
+        long start = reader.position();
+        String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+        int quotes = countQuotes(line);
+        if (quotes % 2 == 0) {
+            return line;
+        }
+        StringBuilder record = new StringBuilder(line);
+        while (quotes % 2 != 0) {
+            line = reader.readLine();
+            if (line == null) {
+                throw new IllegalArgumentException("Unterminated quoted field");
+            }
+            if (reader.position() - start > reader.maxLineBytes()) {
+                throw new IllegalArgumentException("Record at byte " + start + " is longer than " + reader.maxLineBytes() + " bytes");
+            }
+            record.append('\n').append(line);
+            quotes += countQuotes(line);
+        }
+        return record.toString();
+    }
+
+    /**
+     * Position in the header record of each of the {@link #COLUMNS}, -1 for the missing ones.
+     */
+    public int[] readHeader(String header) {
+        List<String> names = parseFields(header);
+        int[] positions = new int[COLUMNS.length];
+        Arrays.fill(positions, -1);
+        for (int i = 0; i < names.size(); i++) {
+            int column = Arrays.asList(COLUMNS).indexOf(names.get(i).trim());
+            if (column < 0) {
+                throw new IllegalArgumentException("Unknown column " + names.get(i));
+            }
+            positions[column] = i;
+        }
+        return positions;
+    }
+
+    public StudentDTO read(String record, int[] positions) {
+        List<String> fields = parseFields(record);
+        StudentDTO student = new StudentDTO();
+        student.setStudentNumber(field(fields, positions[0]));
+        student.setFirstName(field(fields, positions[1]));
+        student.setLastName(field(fields, positions[2]));
+        student.setBirthDate(parseDate(field(fields, positions[3])));
+        student.setEmail(field(fields, positions[4]));
+        student.setPhoneNumber(field(fields, positions[5]));
+        student.setSubscribeStart(parseDate(field(fields, positions[6])));
+        student.setSubscribeEnd(parseDate(field(fields, positions[7])));
+        return student;
+    }
+
+    private static List<String> parseFields(String record) {
+        List<String> fields = new ArrayList<>(COLUMNS.length);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    // Empty fields are read as null, as they are written.
+    private static String field(List<String> fields, int position) {
+        if (position < 0 || position >= fields.size() || fields.get(position).isEmpty()) {
+            return null;
+        }
+        return fields.get(position);
+    }
+
+    private static LocalDate parseDate(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value, DATE_FORMATTER);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date " + value + ", expected dd/MM/yyyy");
+        }
+    }
+
+    private static int countQuotes(CharSequence value) {
+        int count = 0;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == '"') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static String format(LocalDate date) {
+        return date != null ? DATE_FORMATTER.format(date) : null;
+    }
+
+    private static void writeField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quoted = false;
+        for (int i = 0; i < value.length() && !quoted; i++) {
+            char c = value.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quoted) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
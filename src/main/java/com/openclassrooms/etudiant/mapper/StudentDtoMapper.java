@@ -12,6 +12,7 @@ public interface StudentDtoMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "created_at", ignore = true)
     @Mapping(target = "updated_at", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Student toEntity(StudentDTO studentDTO);
     StudentDTO toDto(Student student);
 }
@@ -0,0 +1,18 @@
+package com.openclassrooms.etudiant.mapper;
+
+import com.openclassrooms.etudiant.dto.StudentImportErrorDTO;
+import com.openclassrooms.etudiant.dto.StudentImportJobDTO;
+import com.openclassrooms.etudiant.entities.StudentImportError;
+import com.openclassrooms.etudiant.entities.StudentImportJob;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.ReportingPolicy;
+
+@Mapper(componentModel = "spring",
+        unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface StudentImportMapper {
+    @Mapping(target = "createdAt", source = "created_at")
+    @Mapping(target = "updatedAt", source = "updated_at")
+    StudentImportJobDTO toDto(StudentImportJob job);
+    StudentImportErrorDTO toDto(StudentImportError error);
+}
@@ -12,6 +12,8 @@ public interface UserDtoMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "created_at", ignore = true)
     @Mapping(target = "updated_at", ignore = true)
+    @Mapping(target = "version", ignore = true)
     @Mapping(target = "authorities", ignore = true)
+    @Mapping(target = "role", ignore = true)
     User toEntity(RegisterDTO registerDTO);
 }
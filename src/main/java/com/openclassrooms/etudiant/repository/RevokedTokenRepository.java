@@ -0,0 +1,33 @@
+package com.openclassrooms.etudiant.repository;
+
+import com.openclassrooms.etudiant.entities.RevokedToken;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+// Reads on the primary, like the writes: a revocation must apply as soon as it is committed.
+@Transactional
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+    boolean existsByJti(String jti);
+
+    @Modifying
+    @Query(value = "insert ignore into revoked_token (jti, expires_at) values (:jti, :expiresAt)", nativeQuery = true)
+    int insertIgnore(@Param("jti") String jti, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<RevokedToken> findTop1000ByIdGreaterThanOrderByIdAsc(Long id);
+
+    @Modifying
+    @Query("delete from RevokedToken r where r.expiresAt < :date")
+    int deleteExpired(@Param("date") LocalDateTime date);
+}
@@ -0,0 +1,39 @@
+package com.openclassrooms.etudiant.repository;
+
+import com.openclassrooms.etudiant.entities.StudentChange;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+// Reads on the primary, like the writes: a replica behind by more than the settle window would skip changes.
+@Transactional
+public interface StudentChangeRepository extends JpaRepository<StudentChange, Long> {
+    // A range scan of the primary key, up to the first change still in the settle window: a change that settles
+    // earlier than one with a smaller id is only read once every change before it has settled too.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("select c from StudentChange c where c.id > :since and c.id < coalesce((select min(u.id) from StudentChange u "
+            + "where u.changedAt > local datetime - :settleNanos nanosecond), 9223372036854775807L) order by c.id")
+    List<StudentChange> findSettledAfter(@Param("since") long since, @Param("settleNanos") long settleNanos, Limit limit);
+
+    @Query("select coalesce(max(c.id), 0) from StudentChange c where c.id < coalesce((select min(u.id) from StudentChange u "
+            + "where u.changedAt > local datetime - :settleNanos nanosecond), 9223372036854775807L)")
+    long findLastSettledId(@Param("settleNanos") long settleNanos);
+
+    @Query("select coalesce(max(c.id), 0) from StudentChange c")
+    long findLastId();
+
+    @Modifying
+    @Query("delete from StudentChange c where c.changedAt < :date and c.id < :beforeId")
+    int deleteOlderThan(@Param("date") LocalDateTime date, @Param("beforeId") long beforeId);
+}
@@ -0,0 +1,20 @@
+package com.openclassrooms.etudiant.repository;
+
+import com.openclassrooms.etudiant.entities.StudentImportError;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+// Reads on the primary, like the writes: the errors of a running job are read while it saves them.
+@Transactional
+public interface StudentImportErrorRepository extends JpaRepository<StudentImportError, Long> {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<StudentImportError> findByJobIdAndRecordNumberGreaterThanOrderByRecordNumber(String jobId, long recordNumber, Limit limit);
+}
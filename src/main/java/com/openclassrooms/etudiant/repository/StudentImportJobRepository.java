@@ -0,0 +1,12 @@
+package com.openclassrooms.etudiant.repository;
+
+import com.openclassrooms.etudiant.entities.StudentImportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+// Reads on the primary, like the writes: clients poll a job right after creating it.
+@Transactional
+public interface StudentImportJobRepository extends JpaRepository<StudentImportJob, String> {
+}
@@ -0,0 +1,17 @@
+package com.openclassrooms.etudiant.repository;
+
+import com.openclassrooms.etudiant.entities.Student;
+import jakarta.persistence.Tuple;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface StudentProjectionRepository {
+    /**
+     * Selects only the given attributes of the matching students, each one aliased by its name.
+     * No entity is instantiated, so nothing is added to the persistence context.
+     */
+    List<Tuple> findAttributes(Specification<Student> specification, Collection<String> attributes, Sort sort, int limit);
+}
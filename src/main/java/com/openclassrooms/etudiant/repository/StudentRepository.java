@@ -1,12 +1,63 @@
 package com.openclassrooms.etudiant.repository;
 
 import com.openclassrooms.etudiant.entities.Student;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
-public interface StudentRepository extends JpaRepository<Student, Long> {
+public interface StudentRepository extends JpaRepository<Student, Long>, JpaSpecificationExecutor<Student>,
+        StudentProjectionRepository, StudentUpdateRepository {
+    // Outside of a transaction, reads on the primary: the student is reloaded once its change is committed.
+    @Transactional
     Optional<Student> findByStudentNumber(String studentNumber);
+
+    boolean existsByStudentNumber(String studentNumber);
+
+    @Query("select new com.openclassrooms.etudiant.repository.StudentVersion(s.id, s.version) from Student s where s.studentNumber = :studentNumber")
+    Optional<StudentVersion> findVersionByStudentNumber(@Param("studentNumber") String studentNumber);
     Optional<List<Student>> findAllByFirstNameAndLastName(String firstName, String lastName);
+
+    // Integer.MIN_VALUE makes MySQL Connector/J stream the rows instead of buffering the whole result set.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    Stream<Student> streamByStudentNumberGreaterThanOrderByStudentNumber(String studentNumber);
+
+    @Query("select s.studentNumber from Student s where s.studentNumber in :studentNumbers")
+    Set<String> findExistingStudentNumbers(@Param("studentNumbers") Collection<String> studentNumbers);
+
+    // Locked so that a student renewed meanwhile cannot be deleted by the statement that follows.
+    @Query(value = "select student_num from student where sub_end < :before order by sub_end limit :limit for update",
+            nativeQuery = true)
+    List<String> lockStudentNumbersBySubscribeEndBefore(@Param("before") LocalDate before, @Param("limit") int limit);
+
+    @Query(value = "select student_num from student where student_num in (:studentNumbers) for update", nativeQuery = true)
+    List<String> lockStudentNumbersIn(@Param("studentNumbers") Collection<String> studentNumbers);
+
+    @Modifying
+    @Query("delete from Student s where s.studentNumber = :studentNumber")
+    int deleteByStudentNumber(@Param("studentNumber") String studentNumber);
+
+    @Modifying
+    @Query("delete from Student s where s.studentNumber in :studentNumbers")
+    int deleteByStudentNumberIn(@Param("studentNumbers") Collection<String> studentNumbers);
+
+    // max() is read from the end of the updated_at index.
+    @Query("select count(s) as count, max(s.updated_at) as lastUpdate from Student s")
+    StudentTableVersion getTableVersion();
 }
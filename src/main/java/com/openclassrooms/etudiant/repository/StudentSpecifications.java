@@ -0,0 +1,102 @@
+package com.openclassrooms.etudiant.repository;
+
+import com.openclassrooms.etudiant.dto.StudentSearchDTO;
+import com.openclassrooms.etudiant.entities.Student;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.apache.logging.log4j.util.Strings;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public final class StudentSpecifications {
+    // Not a backslash, which MySQL also treats as an escape inside string literals.
+    private static final char ESCAPE = '!';
+
+    private StudentSpecifications() {
+    }
+
+    /**
+     * Conjunction of the criteria that are set. Names are matched by prefix so that the name index
+     * can be range scanned, the other criteria by equality or range.
+     */
+    public static Specification<Student> matching(StudentSearchDTO search) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (Strings.isNotBlank(search.getLastName())) {
+                predicates.add(cb.like(root.get("lastName"), escapeLike(search.getLastName()) + "%", ESCAPE));
+            }
+            if (Strings.isNotBlank(search.getFirstName())) {
+                predicates.add(cb.like(root.get("firstName"), escapeLike(search.getFirstName()) + "%", ESCAPE));
+            }
+            if (Strings.isNotBlank(search.getEmail())) {
+                predicates.add(cb.equal(root.get("email"), search.getEmail()));
+            }
+            if (Strings.isNotBlank(search.getPhoneNumber())) {
+                predicates.add(cb.equal(root.get("phoneNumber"), search.getPhoneNumber()));
+            }
+            if (search.getBornAfter() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("birthDate"), search.getBornAfter()));
+            }
+            if (search.getBornBefore() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("birthDate"), search.getBornBefore()));
+            }
+            if (search.getActiveOn() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("subscribeEnd"), search.getActiveOn()));
+                predicates.add(cb.lessThanOrEqualTo(root.get("subscribeStart"), search.getActiveOn()));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    public static Specification<Student> hasStudentNumber(String studentNumber) {
+        return (root, query, cb) -> cb.equal(root.get("studentNumber"), studentNumber);
+    }
+
+    public static Specification<Student> hasVersionIn(Collection<StudentVersion> versions) {
+        return (root, query, cb) -> cb.or(versions.stream()
+                .map(version -> cb.and(cb.equal(root.get("id"), version.getId()), cb.equal(root.get("version"), version.getVersion())))
+                .toArray(Predicate[]::new));
+    }
+
+    /**
+     * Students whose subscription, as currently stored, would still be consistent with the new start or end.
+     * Lets a partial update check the dates it does not change without reading them first.
+     */
+    public static Specification<Student> subscriptionEndsOnOrAfter(LocalDate start) {
+        return (root, query, cb) -> cb.or(cb.isNull(root.get("subscribeEnd")), cb.greaterThanOrEqualTo(root.get("subscribeEnd"), start));
+    }
+
+    public static Specification<Student> subscriptionStartsOnOrBefore(LocalDate end) {
+        return (root, query, cb) -> cb.or(cb.isNull(root.get("subscribeStart")), cb.lessThanOrEqualTo(root.get("subscribeStart"), end));
+    }
+
+    /**
+     * Rows strictly after the (value, id) boundary when ordering by the property then the id.
+     * Nulls follow MySQL's native ordering: first when ascending, last when descending.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Student> after(String property, Sort.Direction direction, Comparable value, Long id) {
+        return (root, query, cb) -> {
+            Path<Comparable> column = root.get(property);
+            Path<Long> idColumn = root.get("id");
+            boolean ascending = direction.isAscending();
+            Predicate idAfter = ascending ? cb.greaterThan(idColumn, id) : cb.lessThan(idColumn, id);
+            if (value == null) {
+                Predicate sameNull = cb.and(cb.isNull(column), idAfter);
+                return ascending ? cb.or(sameNull, cb.isNotNull(column)) : sameNull;
+            }
+            Predicate valueAfter = ascending ? cb.greaterThan(column, value) : cb.lessThan(column, value);
+            Predicate sameValue = cb.and(cb.equal(column, value), idAfter);
+            return ascending ? cb.or(valueAfter, sameValue) : cb.or(valueAfter, sameValue, cb.isNull(column));
+        };
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+}
@@ -0,0 +1,13 @@
+package com.openclassrooms.etudiant.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Row count and latest update of the student table: together they change whenever a student is
+ * created, updated or deleted.
+ */
+public interface StudentTableVersion {
+    long getCount();
+
+    LocalDateTime getLastUpdate();
+}
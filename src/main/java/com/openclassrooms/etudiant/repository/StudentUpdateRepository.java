@@ -0,0 +1,14 @@
+package com.openclassrooms.etudiant.repository;
+
+import com.openclassrooms.etudiant.entities.Student;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Map;
+
+public interface StudentUpdateRepository {
+    /**
+     * Sets the given attributes, and only them, on the matching students with a single UPDATE statement.
+     * Nothing is read beforehand. The version of the students is incremented; returns the number of students updated.
+     */
+    int updateAttributes(Specification<Student> specification, Map<String, Object> attributes);
+}
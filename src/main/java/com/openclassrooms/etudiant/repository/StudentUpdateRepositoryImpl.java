@@ -0,0 +1,35 @@
+package com.openclassrooms.etudiant.repository;
+
+import com.openclassrooms.etudiant.entities.Student;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class StudentUpdateRepositoryImpl implements StudentUpdateRepository {
+    private final EntityManager entityManager;
+
+    // Bulk updates bypass @Version and @UpdateTimestamp: the version is incremented and updated_at set here.
+    @Override
+    public int updateAttributes(Specification<Student> specification, Map<String, Object> attributes) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Student> update = cb.createCriteriaUpdate(Student.class);
+        Root<Student> root = update.from(Student.class);
+        attributes.forEach(update::set);
+        update.set("updated_at", LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+        update.set(root.<Long>get("version"), cb.sum(root.<Long>get("version"), 1L));
+        Predicate predicate = specification.toPredicate(root, null, cb);
+        if (predicate != null) {
+            update.where(predicate);
+        }
+        return entityManager.createQuery(update).executeUpdate();
+    }
+}
@@ -0,0 +1,13 @@
+package com.openclassrooms.etudiant.repository;
+
+import lombok.Value;
+
+/**
+ * A student row at a given version. The id tells apart a student deleted and created again under the same
+ * number, whose version starts over.
+ */
+@Value
+public class StudentVersion {
+    long id;
+    long version;
+}
@@ -2,11 +2,22 @@ package com.openclassrooms.etudiant.repository;
 
 import com.openclassrooms.etudiant.entities.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByLogin(String login);
+
+    // Only applies if the user was not changed since it was read, returns 0 otherwise.
+    @Modifying
+    @Query("update User u set u.password = :password, u.version = u.version + 1, u.updated_at = :now "
+            + "where u.id = :id and u.version = :version")
+    int updatePassword(@Param("id") Long id, @Param("version") Long version, @Param("password") String password,
+                       @Param("now") LocalDateTime now);
 }
@@ -0,0 +1,18 @@
+package com.openclassrooms.etudiant.service;
+
+import com.openclassrooms.etudiant.dto.StudentDTO;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * A student as served by the API, with the validators of its representation.
+ */
+@Getter
+@AllArgsConstructor
+public class CachedStudent {
+    private final StudentDTO student;
+    private final String etag;
+    private final Instant lastModified;
+}
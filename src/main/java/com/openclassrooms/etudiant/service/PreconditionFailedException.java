@@ -0,0 +1,18 @@
+package com.openclassrooms.etudiant.service;
+
+import com.openclassrooms.etudiant.repository.StudentVersion;
+import lombok.Getter;
+
+/**
+ * The student changed since the version the client sent in If-Match. Answered with a 412 carrying the current
+ * ETag when it is known, so that the client can retry without reading the student again.
+ */
+@Getter
+public class PreconditionFailedException extends RuntimeException {
+    private final StudentVersion currentVersion;
+
+    public PreconditionFailedException(String message, StudentVersion currentVersion) {
+        super(message);
+        this.currentVersion = currentVersion;
+    }
+}
@@ -0,0 +1,10 @@
+package com.openclassrooms.etudiant.service;
+
+/**
+ * A change to an existing student was requested without If-Match. Answered with a 428.
+ */
+public class PreconditionRequiredException extends RuntimeException {
+    public PreconditionRequiredException(String message) {
+        super(message);
+    }
+}
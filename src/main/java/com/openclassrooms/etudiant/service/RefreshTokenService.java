@@ -0,0 +1,112 @@
+package com.openclassrooms.etudiant.service;
+
+import com.openclassrooms.etudiant.configuration.security.JwtUtils;
+import com.openclassrooms.etudiant.dto.AuthTokensDTO;
+import com.openclassrooms.etudiant.entities.RefreshToken;
+import com.openclassrooms.etudiant.entities.User;
+import com.openclassrooms.etudiant.repository.RefreshTokenRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Issues and rotates the refresh tokens. Each refresh consumes the presented token and returns a new one
+ * of the same family; presenting an already consumed token revokes the whole family.
+ */
+@Slf4j
+@Service
+public class RefreshTokenService {
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final JwtUtils jwtUtils;
+    private final Duration refreshExpiration;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               JwtUtils jwtUtils,
+                               @Value("${jwt.refresh-expiration:30d}") Duration refreshExpiration) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.jwtUtils = jwtUtils;
+        this.refreshExpiration = refreshExpiration;
+    }
+
+    public Duration getRefreshExpiration() {
+        return refreshExpiration;
+    }
+
+    @Transactional
+    public String issue(User user) {
+        return issue(user, UUID.randomUUID().toString());
+    }
+
+    // The family revocation must survive the rejection of a reused token.
+    @Transactional(noRollbackFor = BadCredentialsException.class)
+    public AuthTokensDTO rotate(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new BadCredentialsException("Refresh token is missing");
+        }
+        RefreshToken refreshToken = refreshTokenRepository.findByTokenHash(hash(token))
+                .orElseThrow(() -> new BadCredentialsException("Refresh token is not valid"));
+        if (refreshToken.isRevoked()) {
+            log.warn("Refresh token reused, revoking family {}", refreshToken.getFamilyId());
+            refreshTokenRepository.revokeFamily(refreshToken.getFamilyId());
+            throw new BadCredentialsException("Refresh token is not valid");
+        }
+        if (refreshToken.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new BadCredentialsException("Refresh token has expired");
+        }
+        refreshToken.setRevoked(true);
+        User user = refreshToken.getUser();
+        return new AuthTokensDTO(jwtUtils.generateToken(user), issue(user, refreshToken.getFamilyId()));
+    }
+
+    /**
+     * Revokes the family of the token and returns its user.
+     */
+    @Transactional
+    public User revoke(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new BadCredentialsException("Refresh token is missing");
+        }
+        RefreshToken refreshToken = refreshTokenRepository.findByTokenHash(hash(token))
+                .orElseThrow(() -> new BadCredentialsException("Refresh token is not valid"));
+        refreshTokenRepository.revokeFamily(refreshToken.getFamilyId());
+        return refreshToken.getUser();
+    }
+
+    @Scheduled(cron = "${jwt.refresh-cleanup-cron:0 30 3 * * *}")
+    public void deleteExpired() {
+        int deleted = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        log.info("{} expired refresh tokens deleted", deleted);
+    }
+
+    private String issue(User user, String familyId) {
+        byte[] bytes = new byte[32];
+        secureRandom.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        refreshTokenRepository.save(new RefreshToken(null, hash(token), familyId, user,
+                LocalDateTime.now().plus(refreshExpiration), false, null));
+        return token;
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.openclassrooms.etudiant.service;
+
+import com.openclassrooms.etudiant.dto.StudentBatchItemDTO;
+import com.openclassrooms.etudiant.dto.StudentBatchResultDTO;
+import com.openclassrooms.etudiant.dto.StudentDTO;
+import com.openclassrooms.etudiant.entities.Student;
+import com.openclassrooms.etudiant.mapper.StudentDtoMapper;
+import com.openclassrooms.etudiant.repository.StudentRepository;
+import com.openclassrooms.etudiant.validator.StudentValidator;
+import com.openclassrooms.etudiant.validator.StudentViolation;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.Assert;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Creates many students at once. Every student is validated, the student numbers already taken are found
+ * with a single query and the accepted students are inserted with JDBC batches, which Hibernate cannot do
+ * for entities whose id is generated by the database.
+ */
+@Slf4j
+@Service
+public class StudentBatchService {
+    private static final String INSERT = "insert into student (student_num, first_name, last_name, birth_date, email, "
+            + "phone_num, sub_start, sub_end, created_at, updated_at) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final StudentRepository studentRepository;
+    private final StudentDtoMapper studentDtoMapper;
+    private final StudentValidator studentValidator;
+    private final Validator validator;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int maxSize;
+    private final int jdbcBatchSize;
+
+    public StudentBatchService(StudentRepository studentRepository,
+                               StudentDtoMapper studentDtoMapper,
+                               StudentValidator studentValidator,
+                               Validator validator,
+                               JdbcTemplate jdbcTemplate,
+                               ApplicationEventPublisher eventPublisher,
+                               @Value("${student.batch.max-size:10000}") int maxSize,
+                               @Value("${student.batch.jdbc-batch-size:1000}") int jdbcBatchSize) {
+        this.studentRepository = studentRepository;
+        this.studentDtoMapper = studentDtoMapper;
+        this.studentValidator = studentValidator;
+        this.validator = validator;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.maxSize = maxSize;
+        this.jdbcBatchSize = jdbcBatchSize;
+    }
+
+    @Transactional
+    public StudentBatchResultDTO createStudents(List<StudentDTO> studentDTOs) {
+        Assert.notNull(studentDTOs, "Students must not be null");
+        if (studentDTOs.size() > maxSize) {
+            throw new IllegalArgumentException("A batch cannot contain more than " + maxSize + " students");
+        }
+        List<StudentBatchItemDTO> items = new ArrayList<>(studentDTOs.size());
+        Student[] accepted = new Student[studentDTOs.size()];
+        Set<String> studentNumbers = new HashSet<>();
+        List<Student> students = studentDTOs.stream()
+                .map(studentDTO -> studentDTO != null ? studentDtoMapper.toEntity(studentDTO) : null)
+                .toList();
+        List<List<StudentViolation>> violations = studentValidator.checkAll(students);
+        for (int i = 0; i < students.size(); i++) {
+            Student student = students.get(i);
+            String error = validate(student, violations.get(i));
+            if (error == null && !studentNumbers.add(student.getStudentNumber())) {
+                error = "Student number " + student.getStudentNumber() + " appears more than once in the batch";
+            }
+            items.add(new StudentBatchItemDTO(i, student != null ? student.getStudentNumber() : null,
+                    error == null ? StudentBatchItemDTO.Status.CREATED : StudentBatchItemDTO.Status.REJECTED, error));
+            accepted[i] = error == null ? student : null;
+        }
+
+        List<Student> candidates = new ArrayList<>();
+        for (Student student : accepted) {
+            if (student != null) {
+                candidates.add(student);
+            }
+        }
+        Set<String> existing = insertNew(candidates);
+        for (int i = 0; i < accepted.length; i++) {
+            if (accepted[i] != null && existing.contains(accepted[i].getStudentNumber())) {
+                items.get(i).setStatus(StudentBatchItemDTO.Status.REJECTED);
+                items.get(i).setMessage("Student with student number " + accepted[i].getStudentNumber() + " already exists");
+            }
+        }
+        int created = candidates.size() - existing.size();
+        log.info("{} students created out of a batch of {}", created, studentDTOs.size());
+        return new StudentBatchResultDTO(created, studentDTOs.size() - created, items);
+    }
+
+    /**
+     * Inserts the given valid students, whose student numbers must be distinct, except those whose student
+     * number is already taken. Returns the student numbers that were already taken.
+     */
+    @Transactional
+    public Set<String> insertNew(List<Student> candidates) {
+        if (candidates.isEmpty()) {
+            return Set.of();
+        }
+        Set<String> existing = studentRepository.findExistingStudentNumbers(
+                candidates.stream().map(Student::getStudentNumber).toList());
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        List<Student> students = new ArrayList<>(candidates.size());
+        for (Student student : candidates) {
+            if (!existing.contains(student.getStudentNumber())) {
+                student.setCreated_at(now);
+                student.setUpdated_at(now);
+                students.add(student);
+            }
+        }
+        insert(students);
+        students.forEach(student -> eventPublisher.publishEvent(
+                new StudentChangeEvent(StudentChangeEvent.Type.CREATED, student.getStudentNumber(), student)));
+        return existing;
+    }
+
+    /**
+     * Bean Validation constraints of {@link Student} then {@link StudentValidator}. Returns the reason why the
+     * student is invalid, or null.
+     */
+    public String validate(Student student) {
+        return validate(student, student != null ? studentValidator.check(student) : List.of());
+    }
+
+    private String validate(Student student, List<StudentViolation> violations) {
+        if (student == null) {
+            return "Student must not be null";
+        }
+        Set<ConstraintViolation<Student>> constraintViolations = validator.validate(student);
+        if (!constraintViolations.isEmpty()) {
+            return constraintViolations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(". "));
+        }
+        return violations.isEmpty() ? null : StudentValidator.describe(violations);
+    }
+
+    private void insert(List<Student> students) {
+        if (students.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(INSERT, students, jdbcBatchSize, (ps, student) -> {
+                ps.setString(1, student.getStudentNumber());
+                ps.setString(2, student.getFirstName());
+                ps.setString(3, student.getLastName());
+                ps.setDate(4, Date.valueOf(student.getBirthDate()));
+                ps.setString(5, student.getEmail());
+                ps.setString(6, student.getPhoneNumber());
+                ps.setDate(7, toDate(student.getSubscribeStart()));
+                ps.setDate(8, toDate(student.getSubscribeEnd()));
+                ps.setTimestamp(9, Timestamp.valueOf(student.getCreated_at()));
+                ps.setTimestamp(10, Timestamp.valueOf(student.getUpdated_at()));
+            });
+        } catch (DuplicateKeyException e) {
+            // Another request created one of these students after the existence check; nothing was kept.
+            throw new IllegalArgumentException("Some students of the batch were created concurrently, retry the batch");
+        }
+    }
+
+    private static Date toDate(LocalDate date) {
+        return date != null ? Date.valueOf(date) : null;
+    }
+}
@@ -0,0 +1,97 @@
+package com.openclassrooms.etudiant.service;
+
+import com.openclassrooms.etudiant.dto.StudentDeleteRequestDTO;
+import com.openclassrooms.etudiant.dto.StudentDeleteResultDTO;
+import com.openclassrooms.etudiant.repository.StudentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Deletes many students with bulk DELETE statements, without loading them. Each chunk is deleted in its own
+ * transaction, so row locks are only held for one chunk and a purge that fails midway keeps what was done.
+ */
+@Slf4j
+@Service
+public class StudentBulkDeleteService {
+    private final StudentRepository studentRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxSize;
+    private final int chunkSize;
+
+    public StudentBulkDeleteService(StudentRepository studentRepository,
+                                    ApplicationEventPublisher eventPublisher,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${student.batch.max-size:10000}") int maxSize,
+                                    @Value("${student.batch.delete-chunk-size:1000}") int chunkSize) {
+        this.studentRepository = studentRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxSize = maxSize;
+        this.chunkSize = chunkSize;
+    }
+
+    public StudentDeleteResultDTO deleteStudents(StudentDeleteRequestDTO request) {
+        Assert.notNull(request, "Request must not be null");
+        boolean byNumbers = request.getStudentNumbers() != null;
+        if (byNumbers == (request.getSubscribeEndBefore() != null)) {
+            throw new IllegalArgumentException("Either studentNumbers or subscribeEndBefore must be given");
+        }
+        int deleted = byNumbers
+                ? deleteByStudentNumbers(request.getStudentNumbers())
+                : deleteBySubscribeEndBefore(request.getSubscribeEndBefore());
+        log.info("{} students deleted", deleted);
+        return new StudentDeleteResultDTO(deleted);
+    }
+
+    private int deleteByStudentNumbers(List<String> studentNumbers) {
+        if (studentNumbers.size() > maxSize) {
+            throw new IllegalArgumentException("Cannot delete more than " + maxSize + " students by number at once");
+        }
+        List<String> distinct = List.copyOf(new LinkedHashSet<>(studentNumbers));
+        int deleted = 0;
+        for (int from = 0; from < distinct.size(); from += chunkSize) {
+            List<String> chunk = distinct.subList(from, Math.min(from + chunkSize, distinct.size()));
+            // Only the students that exist are deleted and announced, the lock keeps them until the delete.
+            deleted += transactionTemplate.execute(status -> delete(studentRepository.lockStudentNumbersIn(chunk)));
+        }
+        return deleted;
+    }
+
+    // Chunks are read from the subscription end index until a partial one, so the number of students is not bounded.
+    private int deleteBySubscribeEndBefore(LocalDate before) {
+        int deleted = 0;
+        while (true) {
+            List<String> chunk = transactionTemplate.execute(status -> {
+                List<String> studentNumbers = studentRepository.lockStudentNumbersBySubscribeEndBefore(before, chunkSize);
+                delete(studentNumbers);
+                return studentNumbers;
+            });
+            // The chunk is locked, so every student read is deleted.
+            deleted += chunk.size();
+            if (chunk.size() < chunkSize) {
+                return deleted;
+            }
+        }
+    }
+
+    private int delete(Collection<String> studentNumbers) {
+        if (studentNumbers.isEmpty()) {
+            return 0;
+        }
+        int deleted = studentRepository.deleteByStudentNumberIn(studentNumbers);
+        studentNumbers.forEach(studentNumber -> eventPublisher.publishEvent(
+                new StudentChangeEvent(StudentChangeEvent.Type.DELETED, studentNumber, null)));
+        return deleted;
+    }
+}
@@ -0,0 +1,21 @@
+package com.openclassrooms.etudiant.service;
+
+import com.openclassrooms.etudiant.entities.Student;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published by {@link StudentService} inside the transaction that creates, updates or deletes a student.
+ */
+@Getter
+@AllArgsConstructor
+public class StudentChangeEvent {
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final Type type;
+    private final String studentNumber;
+    // The student as saved. Deletions and merge patches do not load the student and leave it null.
+    private final Student student;
+}
@@ -0,0 +1,11 @@
+package com.openclassrooms.etudiant.service;
+
+/**
+ * The changes following the requested sequence were already purged from the change log. The consumer must
+ * resynchronize from the full student list. Answered with a 410.
+ */
+public class StudentChangeExpiredException extends RuntimeException {
+    public StudentChangeExpiredException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,271 @@
+package com.openclassrooms.etudiant.service;
+
+import com.openclassrooms.etudiant.entities.StudentChange;
+import com.openclassrooms.etudiant.mapper.StudentChangeMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams the student change log to Server-Sent Events subscribers. Subscriptions are async requests and
+ * hold no request thread: a single poller reads the log, once per distinct subscriber position, which is
+ * the head for the subscribers that are up to date, and a small pool sends the changes, one task at most
+ * per subscriber.
+ * <p>
+ * Sends are blocking servlet writes. A subscriber whose send is still running after the send timeout has
+ * stopped reading: it is dropped, and the pool gets a thread in place of the one stuck in its write until
+ * the container's write timeout fails it, so that the other subscribers are not held up. A dropped client
+ * reconnects with its Last-Event-ID without missing a change.
+ */
+@Slf4j
+@Service
+public class StudentChangeFeed {
+    // Cursor of a subscriber starting from the changes to come, until the poller finds the last sequence.
+    private static final long AT_HEAD = -1;
+    private static final int IDLE = 0;
+    private static final int SENDING = 1;
+    private static final int STALLED = 2;
+
+    private final StudentChangeLog changeLog;
+    private final StudentChangeMapper changeMapper;
+    private final Duration timeout;
+    private final Duration heartbeat;
+    private final long sendTimeoutNanos;
+    private final int maxSubscribers;
+    private final int senderThreads;
+    private final int pageSize;
+    private final ThreadPoolExecutor senderPool;
+    private final ExecutorService senders;
+    private final Counter stalledCounter;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // Sender threads stuck in the write of a dropped subscriber, replaced in the pool until their write fails.
+    private int stalledSenders;
+
+    public StudentChangeFeed(StudentChangeLog changeLog,
+                             StudentChangeMapper changeMapper,
+                             MeterRegistry meterRegistry,
+                             @Value("${student.changes.stream-timeout:30m}") Duration timeout,
+                             @Value("${student.changes.heartbeat:15s}") Duration heartbeat,
+                             @Value("${student.changes.send-timeout:1s}") Duration sendTimeout,
+                             @Value("${student.changes.max-subscribers:500}") int maxSubscribers,
+                             @Value("${student.changes.sender-threads:4}") int senderThreads) {
+        this.changeLog = changeLog;
+        this.changeMapper = changeMapper;
+        this.timeout = timeout;
+        this.heartbeat = heartbeat;
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        this.maxSubscribers = maxSubscribers;
+        this.senderThreads = senderThreads;
+        this.pageSize = changeLog.getMaxSize();
+        this.senderPool = new ThreadPoolExecutor(senderThreads, senderThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                new CustomizableThreadFactory("student-change-sender-"));
+        this.senders = ExecutorServiceMetrics.monitor(meterRegistry, senderPool, "student.changes.senders");
+        this.stalledCounter = meterRegistry.counter("student.changes.subscribers.stalled");
+        Gauge.builder("student.changes.subscribers", subscribers, Set::size).register(meterRegistry);
+    }
+
+    /**
+     * Streams the changes following the since sequence, or the changes to come when since is null. A sequence
+     * already purged is answered with an EXPIRED event that ends the stream.
+     */
+    public SseEmitter subscribe(Long since) {
+        if (since != null && since < 0) {
+            throw new IllegalArgumentException("Sequence must not be negative");
+        }
+        // Stalled senders count too, so that clients that stop reading cannot pile up threads.
+        if (subscribers.size() + stalledSenders() >= maxSubscribers) {
+            throw new RejectedExecutionException("Too many change stream subscribers, retry later");
+        }
+        // No database access here: the poller finds where a subscriber starts, so subscribing never waits for a connection.
+        SseEmitter emitter = createEmitter();
+        Subscriber subscriber = new Subscriber(emitter, since != null ? since : AT_HEAD);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> {
+            subscribers.remove(subscriber);
+            emitter.complete();
+        });
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    SseEmitter createEmitter() {
+        return new SseEmitter(timeout.toMillis());
+    }
+
+    @Scheduled(fixedDelayString = "${student.changes.poll-interval:1s}")
+    public void poll() {
+        Map<Long, List<Subscriber>> byCursor = new HashMap<>();
+        List<Subscriber> joining = new ArrayList<>();
+        long start = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.state.get() == SENDING && start - subscriber.sendStarted > sendTimeoutNanos) {
+                drop(subscriber);
+            } else if (!subscriber.busy.get()) {
+                if (subscriber.cursor == AT_HEAD) {
+                    joining.add(subscriber);
+                } else {
+                    byCursor.computeIfAbsent(subscriber.cursor, cursor -> new ArrayList<>()).add(subscriber);
+                }
+            }
+        }
+        if (!joining.isEmpty()) {
+            long head = changeLog.head();
+            joining.forEach(subscriber -> dispatch(subscriber, () -> join(subscriber, head)));
+        }
+        byCursor.forEach((cursor, waiting) -> {
+            List<StudentChange> changes;
+            try {
+                changes = changeLog.read(cursor, Limit.of(pageSize));
+            } catch (StudentChangeExpiredException e) {
+                waiting.forEach(subscriber -> dispatch(subscriber, () -> expire(subscriber)));
+                return;
+            }
+            long now = System.nanoTime();
+            for (Subscriber subscriber : waiting) {
+                if (!changes.isEmpty()) {
+                    dispatch(subscriber, () -> send(subscriber, changes));
+                } else if (now - subscriber.lastSent >= heartbeat.toNanos()) {
+                    dispatch(subscriber, () -> heartbeat(subscriber));
+                }
+            }
+        });
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    private void dispatch(Subscriber subscriber, SendTask task) {
+        if (!subscriber.busy.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            senders.execute(() -> {
+                subscriber.sendStarted = System.nanoTime();
+                subscriber.state.set(SENDING);
+                try {
+                    task.run();
+                    subscriber.lastSent = System.nanoTime();
+                    if (subscriber.state.getAndSet(IDLE) == STALLED) {
+                        releaseStalledSender();
+                        // Dropped meanwhile: ends the stream so that the client reconnects.
+                        subscriber.emitter.complete();
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // The client went away: the emitter cannot be written to anymore.
+                    log.debug("Change stream subscriber dropped: {}", e.getMessage());
+                    subscribers.remove(subscriber);
+                    if (subscriber.state.getAndSet(IDLE) == STALLED) {
+                        releaseStalledSender();
+                    }
+                    subscriber.emitter.completeWithError(e);
+                } finally {
+                    subscriber.busy.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            subscriber.busy.set(false);
+        }
+    }
+
+    // The emitter is not touched: its methods wait for the monitor the stuck write holds.
+    private void drop(Subscriber subscriber) {
+        if (!subscriber.state.compareAndSet(SENDING, STALLED)) {
+            return;
+        }
+        log.info("Change stream subscriber dropped: a send is pending for more than {} ms", sendTimeoutNanos / 1_000_000);
+        subscribers.remove(subscriber);
+        stalledCounter.increment();
+        resizeSenders(1);
+    }
+
+    private void releaseStalledSender() {
+        resizeSenders(-1);
+    }
+
+    private synchronized void resizeSenders(int delta) {
+        stalledSenders += delta;
+        int size = senderThreads + stalledSenders;
+        if (delta > 0) {
+            senderPool.setMaximumPoolSize(size);
+            senderPool.setCorePoolSize(size);
+        } else {
+            senderPool.setCorePoolSize(size);
+            senderPool.setMaximumPoolSize(size);
+        }
+    }
+
+    private synchronized int stalledSenders() {
+        return stalledSenders;
+    }
+
+    private void send(Subscriber subscriber, List<StudentChange> changes) throws IOException {
+        for (StudentChange change : changes) {
+            subscriber.emitter.send(SseEmitter.event()
+                    .id(String.valueOf(change.getId()))
+                    .name(change.getType().name())
+                    .data(changeMapper.toDto(change), MediaType.APPLICATION_JSON));
+            subscriber.cursor = change.getId();
+        }
+    }
+
+    // Gives the client a Last-Event-ID to reconnect with before any change arrives.
+    private void join(Subscriber subscriber, long head) throws IOException {
+        subscriber.emitter.send(SseEmitter.event().id(String.valueOf(head)).name("SUBSCRIBED").data(head));
+        subscriber.cursor = head;
+    }
+
+    private void heartbeat(Subscriber subscriber) throws IOException {
+        subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+    }
+
+    private void expire(Subscriber subscriber) throws IOException {
+        subscribers.remove(subscriber);
+        subscriber.emitter.send(SseEmitter.event().name("EXPIRED").data(subscriber.cursor));
+        subscriber.emitter.complete();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senderPool.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    private interface SendTask {
+        void run() throws IOException;
+    }
+
+    private static class Subscriber {
+        private final SseEmitter emitter;
+        private final AtomicBoolean busy = new AtomicBoolean();
+        private final AtomicInteger state = new AtomicInteger(IDLE);
+        private volatile long sendStarted;
+        private volatile long cursor;
+        private volatile long lastSent = System.nanoTime();
+
+        private Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+    }
+}
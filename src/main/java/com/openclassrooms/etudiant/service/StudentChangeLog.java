@@ -0,0 +1,144 @@
+package com.openclassrooms.etudiant.service;
+
+import com.openclassrooms.etudiant.entities.StudentChange;
+import com.openclassrooms.etudiant.repository.StudentChangeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only log of the student changes, written in the transaction that makes them. The changes of a
+ * transaction are inserted together, in one JDBC batch, right before it commits.
+ * <p>
+ * The sequence is the auto-increment id, allocated at insert time: a transaction may commit after another
+ * one that got a greater id. Readers are therefore only shown the changes older than the settle window, by
+ * which time every transaction that allocated a smaller id has committed or rolled back, and only up to the
+ * first change that is not, so a consumer never skips a change by resuming after a greater sequence. The
+ * database stamps the changes and measures the window, so the clocks of the instances do not matter.
+ */
+@Slf4j
+@Service
+public class StudentChangeLog {
+    private static final String INSERT = "insert into student_change (type, student_num, changed_at) values (?, ?, localtimestamp(6))";
+
+    private final StudentChangeRepository changeRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration settle;
+    private final Duration retention;
+    private final int maxSize;
+
+    public StudentChangeLog(StudentChangeRepository changeRepository,
+                            JdbcTemplate jdbcTemplate,
+                            @Value("${student.changes.settle:2s}") Duration settle,
+                            @Value("${student.changes.retention:30d}") Duration retention,
+                            @Value("${student.changes.max-size:1000}") int maxSize) {
+        this.changeRepository = changeRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.settle = settle;
+        this.retention = retention;
+        this.maxSize = maxSize;
+    }
+
+    @EventListener
+    public void onStudentChange(StudentChangeEvent event) {
+        StudentChange change = new StudentChange(null, StudentChange.Type.valueOf(event.getType().name()),
+                event.getStudentNumber(), null);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            insert(List.of(change));
+            return;
+        }
+        // Bound to the transaction under this log as key, so that each change finds its list at once.
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.registerSynchronization(pending);
+            TransactionSynchronizationManager.bindResource(this, pending);
+        }
+        pending.changes.add(change);
+    }
+
+    /**
+     * At most size changes following the since sequence, in sequence order.
+     */
+    public List<StudentChange> read(long since, int size) {
+        if (size < 1 || size > maxSize) {
+            throw new IllegalArgumentException("Size must be between 1 and " + maxSize);
+        }
+        return read(since, Limit.of(size));
+    }
+
+    List<StudentChange> read(long since, Limit limit) {
+        if (since < 0) {
+            throw new IllegalArgumentException("Sequence must not be negative");
+        }
+        List<StudentChange> changes = changeRepository.findSettledAfter(since, settle.toNanos(), limit);
+        // A sequence comes from a change of the log: once that change is gone, so may be the ones after it.
+        if (since > 0 && (changes.isEmpty() || changes.get(0).getId() > since + 1) && !changeRepository.existsById(since)) {
+            throw new StudentChangeExpiredException("Changes after sequence " + since + " are no longer available");
+        }
+        return changes;
+    }
+
+    /**
+     * The sequence of the last settled change, where a consumer only interested in the changes to come starts.
+     */
+    public long head() {
+        return changeRepository.findLastSettledId(settle.toNanos());
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    // The newest change is kept so that the last sequence handed out stays resumable.
+    @Scheduled(cron = "${student.changes.purge-cron:0 30 3 * * *}")
+    public void purge() {
+        long last = changeRepository.findLastId();
+        int purged = changeRepository.deleteOlderThan(LocalDateTime.now().minus(retention), last);
+        log.info("{} student changes older than {} purged", purged, retention);
+    }
+
+    private void insert(List<StudentChange> changes) {
+        jdbcTemplate.batchUpdate(INSERT, changes, changes.size(), (statement, change) -> {
+            statement.setString(1, change.getType().name());
+            statement.setString(2, change.getStudentNumber());
+        });
+    }
+
+    private class PendingChanges implements TransactionSynchronization {
+        private final List<StudentChange> changes = new ArrayList<>();
+
+        // Inserted as late as possible, to keep the time between id allocation and commit short.
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            insert(changes);
+        }
+
+        // A transaction suspended by an inner one takes its list along: the inner one starts its own.
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(StudentChangeLog.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(StudentChangeLog.this, this);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(StudentChangeLog.this);
+        }
+    }
+}
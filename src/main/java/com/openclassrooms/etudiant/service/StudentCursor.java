@@ -0,0 +1,51 @@
+package com.openclassrooms.etudiant.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of a page boundary in the listing: the sort it belongs to, the sort value and id of the boundary
+ * row and whether the page is read forward or backward from it. Clients only see it as an opaque string.
+ */
+@Getter
+@AllArgsConstructor
+public class StudentCursor {
+    private static final String SEPARATOR = "|";
+
+    private final StudentSort sort;
+    private final Sort.Direction direction;
+    private final boolean backward;
+    private final Long id;
+    private final Comparable<?> value;
+
+    public String encode() {
+        String raw = String.join(SEPARATOR,
+                sort.name(),
+                direction.name(),
+                backward ? "b" : "f",
+                id.toString(),
+                value == null ? "n" : "v" + value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static StudentCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            // The value comes last so that it may contain the separator.
+            String[] parts = raw.split("\\" + SEPARATOR, 5);
+            StudentSort sort = StudentSort.valueOf(parts[0]);
+            return new StudentCursor(
+                    sort,
+                    Sort.Direction.valueOf(parts[1]),
+                    "b".equals(parts[2]),
+                    Long.valueOf(parts[3]),
+                    parts[4].startsWith("v") ? sort.parse(parts[4].substring(1)) : null);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.openclassrooms.etudiant.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.openclassrooms.etudiant.dto.CacheStatsDTO;
+import com.openclassrooms.etudiant.dto.StudentDTO;
+import com.openclassrooms.etudiant.entities.Student;
+import com.openclassrooms.etudiant.mapper.StudentDtoMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-through cache of the students by student number. Entries are dropped once a change to the
+ * student is committed, the TTL only bounds the staleness of changes made outside of this service.
+ */
+@Slf4j
+@Service
+public class StudentDtoCache {
+    public static final String NAME = "students";
+
+    private final StudentService studentService;
+    private final StudentDtoMapper studentDtoMapper;
+    private final Cache<String, CachedStudent> students;
+
+    public StudentDtoCache(StudentService studentService,
+                           StudentDtoMapper studentDtoMapper,
+                           MeterRegistry meterRegistry,
+                           @Value("${student.cache.max-size:10000}") long maxSize,
+                           @Value("${student.cache.ttl:10m}") Duration ttl) {
+        this.studentService = studentService;
+        this.studentDtoMapper = studentDtoMapper;
+        this.students = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, students, NAME);
+    }
+
+    public CachedStudent get(String studentNumber) {
+        return students.get(studentNumber, this::load);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStudentChange(StudentChangeEvent event) {
+        students.invalidate(event.getStudentNumber());
+    }
+
+    public void invalidate(String studentNumber) {
+        students.invalidate(studentNumber);
+    }
+
+    public void invalidateAll() {
+        log.info("Flushing the {} cache", NAME);
+        students.invalidateAll();
+    }
+
+    // The id and the version change with every saved change, so they identify the representation and are what If-Match compares.
+    private CachedStudent load(String studentNumber) {
+        Student student = studentService.getStudentByStudentNum(studentNumber);
+        StudentDTO studentDTO = studentDtoMapper.toDto(student);
+        Instant updatedAt = student.getUpdated_at() != null ? student.getUpdated_at().atZone(ZoneId.systemDefault()).toInstant() : null;
+        return new CachedStudent(studentDTO, StudentIfMatch.etag(student.getId(), student.getVersion()), updatedAt);
+    }
+
+    public CacheStatsDTO stats() {
+        CacheStats stats = students.stats();
+        return new CacheStatsDTO(
+                NAME,
+                students.estimatedSize(),
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount(),
+                TimeUnit.NANOSECONDS.toMicros((long) stats.averageLoadPenalty()));
+    }
+}
@@ -0,0 +1,83 @@
+package com.openclassrooms.etudiant.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.openclassrooms.etudiant.dto.StudentDTO;
+import com.openclassrooms.etudiant.entities.Student;
+import com.openclassrooms.etudiant.mapper.StudentCsvMapper;
+import com.openclassrooms.etudiant.mapper.StudentDtoMapper;
+import com.openclassrooms.etudiant.repository.StudentRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes the student table ordered by student number, one row at a time, straight from a server-side
+ * cursor to the output. Each entity is detached once written so that the heap use stays flat.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StudentExportService {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final StudentRepository studentRepository;
+    private final StudentDtoMapper studentDtoMapper;
+    private final StudentCsvMapper studentCsvMapper;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+
+    @Transactional(readOnly = true)
+    public long exportNdjson(String afterStudentNumber, OutputStream outputStream) throws IOException {
+        long count = 0;
+        OutputStream out = new BufferedOutputStream(outputStream, BUFFER_SIZE);
+        try (Stream<Student> students = studentRepository.streamByStudentNumberGreaterThanOrderByStudentNumber(
+                afterStudentNumber != null ? afterStudentNumber : "");
+             SequenceWriter writer = objectMapper.writerFor(StudentDTO.class)
+                     .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                     .withRootValueSeparator("\n")
+                     .writeValues(out)) {
+            Iterator<Student> iterator = students.iterator();
+            while (iterator.hasNext()) {
+                Student student = iterator.next();
+                writer.write(studentDtoMapper.toDto(student));
+                entityManager.detach(student);
+                count++;
+            }
+            if (count > 0) {
+                writer.flush();
+                out.write('\n');
+            }
+        }
+        log.info("{} students exported as NDJSON", count);
+        return count;
+    }
+
+    @Transactional(readOnly = true)
+    public long exportCsv(String afterStudentNumber, OutputStream outputStream) throws IOException {
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        try (Stream<Student> students = studentRepository.streamByStudentNumberGreaterThanOrderByStudentNumber(
+                afterStudentNumber != null ? afterStudentNumber : "")) {
+            studentCsvMapper.writeHeader(writer);
+            Iterator<Student> iterator = students.iterator();
+            while (iterator.hasNext()) {
+                Student student = iterator.next();
+                studentCsvMapper.write(writer, studentDtoMapper.toDto(student));
+                entityManager.detach(student);
+                count++;
+            }
+        }
+        writer.flush();
+        log.info("{} students exported as CSV", count);
+        return count;
+    }
+}
@@ -0,0 +1,62 @@
+package com.openclassrooms.etudiant.service;
+
+import com.openclassrooms.etudiant.entities.Student;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Student properties a client may select with the fields parameter or change with a merge patch. Each one
+ * is both a StudentDTO property and the Student attribute it is read from.
+ */
+public enum StudentField {
+    STUDENT_NUMBER("studentNumber", Student::getStudentNumber, true),
+    FIRST_NAME("firstName", Student::getFirstName, true),
+    LAST_NAME("lastName", Student::getLastName, true),
+    BIRTH_DATE("birthDate", Student::getBirthDate, true),
+    EMAIL("email", Student::getEmail, false),
+    PHONE_NUMBER("phoneNumber", Student::getPhoneNumber, false),
+    SUBSCRIBE_START("subscribeStart", Student::getSubscribeStart, false),
+    SUBSCRIBE_END("subscribeEnd", Student::getSubscribeEnd, false);
+
+    private final String property;
+    private final Function<Student, Object> extractor;
+    private final boolean required;
+
+    StudentField(String property, Function<Student, Object> extractor, boolean required) {
+        this.property = property;
+        this.extractor = extractor;
+        this.required = required;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public Object valueOf(Student student) {
+        return extractor.apply(student);
+    }
+
+    // Whether the column is mandatory, so that a patch cannot remove it.
+    public boolean isRequired() {
+        return required;
+    }
+
+    public static StudentField fromProperty(String property) {
+        return Arrays.stream(values())
+                .filter(field -> field.property.equals(property))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown student field " + property));
+    }
+
+    // Keeps the requested order, which is the order of the properties in the projected rows.
+    public static Set<StudentField> parse(String fields) {
+        Set<StudentField> selected = new LinkedHashSet<>();
+        for (String property : fields.split(",")) {
+            selected.add(fromProperty(property.trim()));
+        }
+        return selected;
+    }
+}
@@ -0,0 +1,77 @@
+package com.openclassrooms.etudiant.service;
+
+import com.openclassrooms.etudiant.repository.StudentVersion;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The If-Match header of a request changing a student. The ETag of a student is its quoted id and version, which
+ * If-Match compares strongly: weak tags never match. The id keeps a student created again under the same number,
+ * whose version starts over, from matching the tags of the deleted one.
+ */
+public final class StudentIfMatch {
+    public static final StudentIfMatch ABSENT = new StudentIfMatch(false, false, Set.of());
+
+    private final boolean present;
+    private final boolean any;
+    private final Set<StudentVersion> versions;
+
+    private StudentIfMatch(boolean present, boolean any, Set<StudentVersion> versions) {
+        this.present = present;
+        this.any = any;
+        this.versions = versions;
+    }
+
+    public static StudentIfMatch parse(String header) {
+        if (header == null || header.isBlank()) {
+            return ABSENT;
+        }
+        if (header.trim().equals("*")) {
+            return new StudentIfMatch(true, true, Set.of());
+        }
+        Set<StudentVersion> versions = new HashSet<>();
+        for (String tag : header.split(",")) {
+            String trimmed = tag.trim();
+            int separator = trimmed.indexOf('-');
+            if (trimmed.length() > 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"") && separator > 0) {
+                try {
+                    versions.add(new StudentVersion(Long.parseLong(trimmed.substring(1, separator)),
+                            Long.parseLong(trimmed.substring(separator + 1, trimmed.length() - 1))));
+                } catch (NumberFormatException e) {
+                    // Not one of our tags, it can only fail to match.
+                }
+            }
+        }
+        return new StudentIfMatch(true, false, versions);
+    }
+
+    public static StudentIfMatch of(long id, long version) {
+        return new StudentIfMatch(true, false, Set.of(new StudentVersion(id, version)));
+    }
+
+    public static String etag(long id, long version) {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    public static String etag(StudentVersion version) {
+        return etag(version.getId(), version.getVersion());
+    }
+
+    public boolean isPresent() {
+        return present;
+    }
+
+    // Whether any current version is accepted, in which case versions is empty.
+    public boolean isAny() {
+        return any;
+    }
+
+    public Set<StudentVersion> getVersions() {
+        return versions;
+    }
+
+    public boolean matches(StudentVersion version) {
+        return any || versions.contains(version);
+    }
+}
@@ -0,0 +1,349 @@
+package com.openclassrooms.etudiant.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.etudiant.dto.StudentDTO;
+import com.openclassrooms.etudiant.entities.Student;
+import com.openclassrooms.etudiant.entities.StudentImportError;
+import com.openclassrooms.etudiant.entities.StudentImportJob;
+import com.openclassrooms.etudiant.mapper.StudentCsvMapper;
+import com.openclassrooms.etudiant.mapper.LineReader;
+import com.openclassrooms.etudiant.mapper.StudentDtoMapper;
+import com.openclassrooms.etudiant.repository.StudentImportErrorRepository;
+import com.openclassrooms.etudiant.repository.StudentImportJobRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Imports CSV or NDJSON files of students of any size. The upload is spooled to disk as it arrives, then a job
+ * reads the file in chunks of records. Chunks are parsed and validated in parallel on a bounded pool, with a
+ * bounded number of chunks in flight per job, and written in order, each one in its own transaction together
+ * with the progress of the job and the offset of the next record. A failed or interrupted job seeks to that
+ * offset and resumes after its last committed chunk.
+ */
+@Slf4j
+@Service
+public class StudentImportService {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_MESSAGE_LENGTH = 1000;
+
+    private final StudentImportJobRepository jobRepository;
+    private final StudentImportErrorRepository errorRepository;
+    private final StudentBatchService studentBatchService;
+    private final StudentDtoMapper studentDtoMapper;
+    private final StudentCsvMapper studentCsvMapper;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Path directory;
+    private final int chunkSize;
+    private final int maxErrors;
+    private final int maxLineBytes;
+    private final Duration staleAfter;
+    private final ThreadPoolExecutor jobPool;
+    private final ThreadPoolExecutor parserPool;
+    private final ExecutorService jobs;
+    private final ExecutorService parsers;
+    // Chunks parsed ahead of the one being written: the back-pressure that bounds the memory of a job.
+    private final int window;
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    public StudentImportService(StudentImportJobRepository jobRepository,
+                                StudentImportErrorRepository errorRepository,
+                                StudentBatchService studentBatchService,
+                                StudentDtoMapper studentDtoMapper,
+                                StudentCsvMapper studentCsvMapper,
+                                ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${student.import.directory:${java.io.tmpdir}/student-imports}") Path directory,
+                                @Value("${student.import.chunk-size:1000}") int chunkSize,
+                                @Value("${student.import.parser-threads:0}") int parserThreads,
+                                @Value("${student.import.max-concurrent-jobs:2}") int maxConcurrentJobs,
+                                @Value("${student.import.queue-capacity:16}") int queueCapacity,
+                                @Value("${student.import.max-errors:1000}") int maxErrors,
+                                @Value("${student.import.max-line-bytes:65536}") int maxLineBytes,
+                                @Value("${student.import.stale-after:5m}") Duration staleAfter) throws IOException {
+        this.jobRepository = jobRepository;
+        this.errorRepository = errorRepository;
+        this.studentBatchService = studentBatchService;
+        this.studentDtoMapper = studentDtoMapper;
+        this.studentCsvMapper = studentCsvMapper;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.directory = Files.createDirectories(directory);
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+        this.maxLineBytes = maxLineBytes;
+        this.staleAfter = staleAfter;
+        int threads = parserThreads > 0 ? parserThreads : Runtime.getRuntime().availableProcessors();
+        this.window = threads * 2;
+        this.parserPool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                new CustomizableThreadFactory("student-import-parser-"));
+        this.parsers = ExecutorServiceMetrics.monitor(meterRegistry, parserPool, "student.import.parsers");
+        this.jobPool = new ThreadPoolExecutor(maxConcurrentJobs, maxConcurrentJobs, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("student-import-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.jobs = ExecutorServiceMetrics.monitor(meterRegistry, jobPool, "student.import.jobs");
+    }
+
+    /**
+     * Spools the upload to disk, without holding it in memory, and queues its import.
+     */
+    public StudentImportJob start(String format, InputStream body) throws IOException {
+        StudentImportJob job = new StudentImportJob();
+        job.setId(UUID.randomUUID().toString());
+        job.setFormat(parseFormat(format));
+        job.setStatus(StudentImportJob.Status.PENDING);
+        Path file = file(job.getId());
+        try {
+            job.setFileSize(Files.copy(body, file));
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        job = jobRepository.save(job);
+        log.info("Import {} of {} bytes received", job.getId(), job.getFileSize());
+        submit(job.getId());
+        return job;
+    }
+
+    public StudentImportJob resume(String jobId) {
+        StudentImportJob job = getJob(jobId);
+        if (job.getStatus() == StudentImportJob.Status.COMPLETED) {
+            throw new IllegalArgumentException("Import " + jobId + " is already completed");
+        }
+        // A running job saves its progress after every chunk: one that stopped doing so died with its instance.
+        if (job.getStatus() == StudentImportJob.Status.RUNNING
+                && job.getUpdated_at().isAfter(LocalDateTime.now().minus(staleAfter))) {
+            throw new IllegalArgumentException("Import " + jobId + " is still running");
+        }
+        submit(jobId);
+        return job;
+    }
+
+    public StudentImportJob getJob(String jobId) {
+        return jobRepository.findById(jobId).orElseThrow(() -> new IllegalArgumentException("Import does not exist"));
+    }
+
+    public List<StudentImportError> getErrors(String jobId, long afterRecord, int size) {
+        if (size < 1 || size > maxErrors) {
+            throw new IllegalArgumentException("Size must be between 1 and " + maxErrors);
+        }
+        return errorRepository.findByJobIdAndRecordNumberGreaterThanOrderByRecordNumber(getJob(jobId).getId(),
+                afterRecord, Limit.of(size));
+    }
+
+    private void submit(String jobId) {
+        if (!running.add(jobId)) {
+            throw new IllegalArgumentException("Import " + jobId + " is still running");
+        }
+        try {
+            jobs.execute(() -> {
+                try {
+                    run(jobId);
+                } finally {
+                    running.remove(jobId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.remove(jobId);
+            fail(jobId, "Too many imports in progress");
+            throw new RejectedExecutionException("Too many imports in progress, resume import " + jobId + " later");
+        }
+    }
+
+    private void run(String jobId) {
+        StudentImportJob job = getJob(jobId);
+        job.setStatus(StudentImportJob.Status.RUNNING);
+        job.setError(null);
+        job = jobRepository.save(job);
+        StudentImportJob.Format format = job.getFormat();
+        Deque<Future<ParsedChunk>> inFlight = new ArrayDeque<>();
+        try (FileChannel channel = FileChannel.open(file(jobId), StandardOpenOption.READ)) {
+            LineReader reader = new LineReader(Channels.newInputStream(channel), BUFFER_SIZE, 0, maxLineBytes);
+            int[] columns = format == StudentImportJob.Format.CSV ? readColumns(reader) : null;
+            long recordNumber = job.getRecordCount();
+            if (recordNumber > 0) {
+                channel.position(job.getBytesRead());
+                reader = new LineReader(Channels.newInputStream(channel), BUFFER_SIZE, job.getBytesRead(), maxLineBytes);
+            }
+            List<String> records;
+            while (!(records = readChunk(format, reader)).isEmpty()) {
+                RawChunk chunk = new RawChunk(recordNumber + 1, records, reader.position());
+                recordNumber += records.size();
+                inFlight.add(parsers.submit(() -> parse(chunk, format, columns)));
+                if (inFlight.size() >= window) {
+                    job = write(job, inFlight.poll().get());
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                job = write(job, inFlight.poll().get());
+            }
+            job.setStatus(StudentImportJob.Status.COMPLETED);
+            job.setBytesRead(job.getFileSize());
+            jobRepository.save(job);
+            Files.deleteIfExists(file(jobId));
+            log.info("Import {} completed: {} students created, {} rejected", jobId, job.getCreatedCount(), job.getRejectedCount());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(jobId, "Import interrupted");
+        } catch (Exception e) {
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            log.error("Import {} failed", jobId, cause);
+            fail(jobId, cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName());
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private int[] readColumns(LineReader reader) throws IOException {
+        String header = studentCsvMapper.readRecord(reader);
+        if (header == null) {
+            throw new IllegalArgumentException("The file is empty");
+        }
+        // Spreadsheets often start UTF-8 files with a byte order mark.
+        return studentCsvMapper.readHeader(header.startsWith("\uFEFF") ? header.substring(1) : header);
+    }
+
+    private String readRecord(StudentImportJob.Format format, LineReader reader) throws IOException {
+        return format == StudentImportJob.Format.CSV ? studentCsvMapper.readRecord(reader) : reader.readLine();
+    }
+
+    private List<String> readChunk(StudentImportJob.Format format, LineReader reader) throws IOException {
+        List<String> records = new ArrayList<>(chunkSize);
+        String record;
+        while (records.size() < chunkSize && (record = readRecord(format, reader)) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+
+    private ParsedChunk parse(RawChunk chunk, StudentImportJob.Format format, int[] columns) {
+        List<ParsedRecord> students = new ArrayList<>(chunk.records().size());
+        List<RecordError> errors = new ArrayList<>();
+        for (int i = 0; i < chunk.records().size(); i++) {
+            String record = chunk.records().get(i);
+            long recordNumber = chunk.firstRecord() + i;
+            if (record.isBlank()) {
+                continue;
+            }
+            String studentNumber = null;
+            try {
+                StudentDTO studentDTO = format == StudentImportJob.Format.CSV
+                        ? studentCsvMapper.read(record, columns)
+                        : objectMapper.readValue(record, StudentDTO.class);
+                Student student = studentDtoMapper.toEntity(studentDTO);
+                studentNumber = student.getStudentNumber();
+                String error = studentBatchService.validate(student);
+                if (error == null) {
+                    students.add(new ParsedRecord(recordNumber, student));
+                } else {
+                    errors.add(new RecordError(recordNumber, studentNumber, error));
+                }
+            } catch (JsonProcessingException e) {
+                errors.add(new RecordError(recordNumber, null, e.getOriginalMessage()));
+            } catch (IllegalArgumentException e) {
+                errors.add(new RecordError(recordNumber, studentNumber, e.getMessage()));
+            }
+        }
+        return new ParsedChunk(chunk.firstRecord() + chunk.records().size() - 1, chunk.bytesRead(), students, errors);
+    }
+
+    private StudentImportJob write(StudentImportJob job, ParsedChunk chunk) {
+        return transactionTemplate.execute(status -> {
+            List<RecordError> errors = new ArrayList<>(chunk.errors());
+            Map<String, Long> recordNumbers = new HashMap<>();
+            List<Student> candidates = new ArrayList<>(chunk.students().size());
+            for (ParsedRecord parsed : chunk.students()) {
+                String studentNumber = parsed.student().getStudentNumber();
+                if (recordNumbers.putIfAbsent(studentNumber, parsed.recordNumber()) != null) {
+                    errors.add(new RecordError(parsed.recordNumber(), studentNumber,
+                            "Student number " + studentNumber + " appears more than once in the file"));
+                } else {
+                    candidates.add(parsed.student());
+                }
+            }
+            Set<String> existing = studentBatchService.insertNew(candidates);
+            existing.forEach(studentNumber -> errors.add(new RecordError(recordNumbers.get(studentNumber), studentNumber,
+                    "Student with student number " + studentNumber + " already exists")));
+            errors.sort(Comparator.comparingLong(RecordError::recordNumber));
+
+            // Every rejection is counted but only the first ones are kept, so that a wrong file cannot fill the table.
+            List<StudentImportError> kept = new ArrayList<>();
+            for (int i = 0; i < errors.size() && job.getRejectedCount() + i < maxErrors; i++) {
+                RecordError error = errors.get(i);
+                kept.add(new StudentImportError(null, job, error.recordNumber(), error.studentNumber(), truncate(error.message())));
+            }
+            errorRepository.saveAll(kept);
+            job.setRecordCount(chunk.lastRecord());
+            job.setBytesRead(chunk.bytesRead());
+            job.setCreatedCount(job.getCreatedCount() + candidates.size() - existing.size());
+            job.setRejectedCount(job.getRejectedCount() + errors.size());
+            return jobRepository.save(job);
+        });
+    }
+
+    private void fail(String jobId, String error) {
+        jobRepository.findById(jobId).ifPresent(job -> {
+            job.setStatus(StudentImportJob.Status.FAILED);
+            job.setError(truncate(error));
+            jobRepository.save(job);
+        });
+    }
+
+    private Path file(String jobId) {
+        return directory.resolve(jobId);
+    }
+
+    private static StudentImportJob.Format parseFormat(String format) {
+        try {
+            return StudentImportJob.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported import format " + format);
+        }
+    }
+
+    private static String truncate(String message) {
+        return message.length() > MAX_MESSAGE_LENGTH ? message.substring(0, MAX_MESSAGE_LENGTH) : message;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobPool.shutdownNow();
+        parserPool.shutdownNow();
+    }
+
+    private record RawChunk(long firstRecord, List<String> records, long bytesRead) {
+    }
+
+    private record ParsedRecord(long recordNumber, Student student) {
+    }
+
+    private record RecordError(long recordNumber, String studentNumber, String message) {
+    }
+
+    private record ParsedChunk(long lastRecord, long bytesRead, List<ParsedRecord> students, List<RecordError> errors) {
+    }
+}
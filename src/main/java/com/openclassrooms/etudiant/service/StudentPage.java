@@ -0,0 +1,14 @@
+package com.openclassrooms.etudiant.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class StudentPage<T> {
+    private final List<T> content;
+    private final String next;
+    private final String previous;
+}
@@ -1,29 +1,175 @@
 package com.openclassrooms.etudiant.service;
 
+import com.openclassrooms.etudiant.dto.StudentDTO;
+import com.openclassrooms.etudiant.dto.StudentSearchDTO;
 import com.openclassrooms.etudiant.entities.Student;
+import com.openclassrooms.etudiant.mapper.StudentDtoMapper;
 import com.openclassrooms.etudiant.repository.StudentRepository;
+import com.openclassrooms.etudiant.repository.StudentSpecifications;
+import com.openclassrooms.etudiant.repository.StudentTableVersion;
+import com.openclassrooms.etudiant.repository.StudentVersion;
 import com.openclassrooms.etudiant.validator.StudentValidator;
 import io.jsonwebtoken.lang.Assert;
-import jakarta.transaction.Transactional;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.Tuple;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 @Slf4j
 @Service
 @Transactional
 @RequiredArgsConstructor
 public class StudentService {
+    private static final String VERSION_CONFLICTS = "student.version.conflicts";
+
     private final StudentValidator studentValidator;
     private final StudentRepository studentRepository;
+    private final StudentDtoMapper studentDtoMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${student.page.default-size:50}")
+    private int defaultPageSize;
+    @Value("${student.page.max-size:500}")
+    private int maxPageSize;
 
+    @Transactional(readOnly = true)
     public List<Student> getStudentsList(){
         return studentRepository.findAll();
     }
 
+    /**
+     * Reads one page of the listing by seeking from the cursor's boundary row, so the cost of a page
+     * does not depend on its position. One extra row is read to know whether another page follows.
+     * The students are mapped within the transaction, the connection is released before the response is written.
+     */
+    @Transactional(readOnly = true)
+    public StudentPage<StudentDTO> getStudentsPage(StudentSort sort, Sort.Direction direction, Integer size, String cursor){
+        return readEntityPage((root, query, cb) -> null, sort, direction, size, cursor);
+    }
+
+    /**
+     * Same page as the listing, but only the given fields are selected and no entity is loaded.
+     */
+    @Transactional(readOnly = true)
+    public StudentPage<Map<String, Object>> getStudentsPage(Set<StudentField> fields, StudentSort sort, Sort.Direction direction, Integer size, String cursor){
+        return readFieldsPage((root, query, cb) -> null, fields, sort, direction, size, cursor);
+    }
+
+    /**
+     * Same paging as the listing, restricted to the students matching the search. The cursor does not
+     * carry the criteria: clients send the same criteria along with it.
+     */
+    @Transactional(readOnly = true)
+    public StudentPage<StudentDTO> searchStudents(StudentSearchDTO search, StudentSort sort, Sort.Direction direction, Integer size, String cursor){
+        Assert.notNull(search, "Search must not be null");
+        return readEntityPage(StudentSpecifications.matching(search), sort, direction, size, cursor);
+    }
+
+    @Transactional(readOnly = true)
+    public StudentPage<Map<String, Object>> searchStudents(StudentSearchDTO search, Set<StudentField> fields, StudentSort sort, Sort.Direction direction, Integer size, String cursor){
+        Assert.notNull(search, "Search must not be null");
+        return readFieldsPage(StudentSpecifications.matching(search), fields, sort, direction, size, cursor);
+    }
+
+    private StudentPage<StudentDTO> readEntityPage(Specification<Student> filter, StudentSort sort, Sort.Direction direction, Integer size, String cursor){
+        StudentPage<Student> page = readPage(filter, sort, direction, size, cursor,
+                (specification, order, limit) -> studentRepository.findBy(specification,
+                        query -> query.sortBy(order).limit(limit).all()),
+                Student::getId,
+                (student, pageSort) -> pageSort.valueOf(student));
+        return new StudentPage<>(page.getContent().stream().map(studentDtoMapper::toDto).toList(),
+                page.getNext(), page.getPrevious());
+    }
+
+    // The id and the sort property are selected too, for the cursors, but only the requested fields are returned.
+    private StudentPage<Map<String, Object>> readFieldsPage(Specification<Student> filter, Set<StudentField> fields, StudentSort sort, Sort.Direction direction, Integer size, String cursor){
+        Assert.notEmpty(fields, "Fields must not be empty");
+        StudentPage<Tuple> page = readPage(filter, sort, direction, size, cursor,
+                (specification, order, limit) -> {
+                    Set<String> attributes = new LinkedHashSet<>();
+                    fields.forEach(field -> attributes.add(field.getProperty()));
+                    order.forEach(sortOrder -> attributes.add(sortOrder.getProperty()));
+                    return studentRepository.findAttributes(specification, attributes, order, limit);
+                },
+                tuple -> tuple.get("id", Long.class),
+                (tuple, pageSort) -> (Comparable<?>) tuple.get(pageSort.getProperty()));
+        List<Map<String, Object>> content = new ArrayList<>(page.getContent().size());
+        for(Tuple tuple : page.getContent()){
+            Map<String, Object> row = new LinkedHashMap<>();
+            fields.forEach(field -> row.put(field.getProperty(), tuple.get(field.getProperty())));
+            content.add(row);
+        }
+        return new StudentPage<>(content, page.getNext(), page.getPrevious());
+    }
+
+    private <T> StudentPage<T> readPage(Specification<Student> filter, StudentSort sort, Sort.Direction direction, Integer size, String cursor,
+                                        PageQuery<T> pageQuery, Function<T, Long> idOf, BiFunction<T, StudentSort, Comparable<?>> valueOf){
+        int pageSize = size != null ? size : defaultPageSize;
+        if(pageSize < 1 || pageSize > maxPageSize){
+            throw new IllegalArgumentException("Page size must be between 1 and " + maxPageSize);
+        }
+        StudentCursor from = cursor != null ? StudentCursor.decode(cursor) : null;
+        if(from != null){
+            sort = from.getSort();
+            direction = from.getDirection();
+        }
+        boolean backward = from != null && from.isBackward();
+        Sort.Direction readDirection = backward ? reverse(direction) : direction;
+        Specification<Student> specification = from != null
+                ? filter.and(StudentSpecifications.after(sort.getProperty(), readDirection, from.getValue(), from.getId()))
+                : filter;
+        Sort order = Sort.by(readDirection, sort.getProperty(), "id");
+
+        List<T> rows = new ArrayList<>(pageQuery.read(specification, order, pageSize + 1));
+        boolean hasMore = rows.size() > pageSize;
+        if(hasMore){
+            rows.remove(pageSize);
+        }
+        if(backward){
+            Collections.reverse(rows);
+        }
+        if(rows.isEmpty()){
+            return new StudentPage<>(rows, null, null);
+        }
+        boolean hasNext = backward || hasMore;
+        boolean hasPrevious = backward ? hasMore : from != null;
+        T first = rows.get(0);
+        T last = rows.get(rows.size() - 1);
+        return new StudentPage<>(rows,
+                hasNext ? new StudentCursor(sort, direction, false, idOf.apply(last), valueOf.apply(last, sort)).encode() : null,
+                hasPrevious ? new StudentCursor(sort, direction, true, idOf.apply(first), valueOf.apply(first, sort)).encode() : null);
+    }
+
+    @Transactional(readOnly = true)
+    public StudentTableVersion getTableVersion(){
+        return studentRepository.getTableVersion();
+    }
+
+    // Not read-only: it reloads the cached student once a change is committed, and a replica may not have it yet.
     public Student getStudentByStudentNum(String studentNumber){
         return studentRepository.findByStudentNumber(studentNumber).orElseThrow(() -> new IllegalArgumentException("Student does not exist"));
     }
@@ -37,6 +183,7 @@ public class StudentService {
             throw new IllegalArgumentException("Student with student number " + student.getStudentNumber() + " already exists");
         }
         this.saveStudent(student);
+        eventPublisher.publishEvent(new StudentChangeEvent(StudentChangeEvent.Type.CREATED, student.getStudentNumber(), student));
     }
 
     public void updateStudent(Student studentDb, Student student){
@@ -52,17 +199,156 @@ public class StudentService {
         if(student.getSubscribeStart() != null) studentDb.setSubscribeStart(student.getSubscribeStart());
         if(student.getSubscribeEnd() != null) studentDb.setSubscribeEnd(student.getSubscribeEnd());
         this.saveStudent(studentDb);
+        eventPublisher.publishEvent(new StudentChangeEvent(StudentChangeEvent.Type.UPDATED, studentDb.getStudentNumber(), studentDb));
     }
 
-    public void deleteStudent(String studentNum){
-        Student student = this.getStudentByStudentNum(studentNum);
-        log.info("Deleting student {}", student.getStudentNumber());
+    /**
+     * Creates the student, or updates it if the client's If-Match names its current version. The version is
+     * checked again by the UPDATE, so a concurrent change fails with a 412 instead of being overwritten. Two first
+     * PUTs of the same number can both miss and race on the insert; the unique constraint rejects the loser, which
+     * is retried once and then finds the student.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public StudentUpsert upsertStudent(String studentNumber, Student student, StudentIfMatch ifMatch){
+        Assert.notNull(student, "Student must not be null");
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        try {
+            try {
+                return transactionTemplate.execute(status -> upsert(studentNumber, student, ifMatch));
+            } catch (DataIntegrityViolationException e) {
+                log.info("Student {} was created concurrently, retrying", studentNumber);
+                student.setId(null);
+                student.setVersion(null);
+                return transactionTemplate.execute(status -> upsert(studentNumber, student, ifMatch));
+            }
+        } catch (OptimisticLockingFailureException e) {
+            throw conflict("update", studentNumber, null);
+        }
+    }
 
-        studentRepository.delete(student);
+    private StudentUpsert upsert(String studentNumber, Student student, StudentIfMatch ifMatch){
+        Optional<Student> studentDb = studentRepository.findByStudentNumber(studentNumber);
+        if(studentDb.isPresent()){
+            checkVersion("update", studentNumber, ifMatch, new StudentVersion(studentDb.get().getId(), studentDb.get().getVersion()));
+            updateStudent(studentDb.get(), student);
+            studentRepository.flush();
+            return new StudentUpsert(studentDb.get(), false);
+        }
+        if(ifMatch.isPresent()){
+            throw conflict("update", studentNumber, null);
+        }
+        log.info("Creating new student");
+        student.setStudentNumber(studentNumber);
+        this.saveStudent(student);
+        studentRepository.flush();
+        eventPublisher.publishEvent(new StudentChangeEvent(StudentChangeEvent.Type.CREATED, studentNumber, student));
+        return new StudentUpsert(student, true);
+    }
+
+    /**
+     * Applies a merge patch: the given fields take the values of the student, null removing them, and the others
+     * are left as they are. Only the patched columns are written, by a single UPDATE without reading the student.
+     * A patched subscription date and the If-Match versions are checked by the UPDATE itself. Returns the new
+     * version when If-Match named a single one, null otherwise.
+     */
+    public StudentVersion patchStudent(String studentNumber, Set<StudentField> fields, Student student, StudentIfMatch ifMatch){
+        Assert.notNull(fields, "Fields must not be null");
+        Assert.notNull(student, "Student must not be null");
+        log.info("Patching student {}", studentNumber);
+        requireIfMatch("patch", studentNumber, ifMatch);
+
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        for(StudentField field : fields){
+            Object value = field.valueOf(student);
+            if(field == StudentField.STUDENT_NUMBER && !studentNumber.equals(value)){
+                throw new IllegalArgumentException("Student number cannot be changed");
+            }
+            if(field.isRequired() && (value == null || value instanceof String string && string.isBlank())){
+                throw new IllegalArgumentException(field.getProperty() + " cannot be removed");
+            }
+            if(field != StudentField.STUDENT_NUMBER){
+                attributes.put(field.getProperty(), value);
+            }
+        }
+        studentValidator.validate(student, attributes.keySet());
+        if(attributes.isEmpty()){
+            StudentVersion version = studentRepository.findVersionByStudentNumber(studentNumber)
+                    .orElseThrow(() -> new IllegalArgumentException("Student does not exist"));
+            checkVersion("patch", studentNumber, ifMatch, version);
+            return version;
+        }
+
+        Specification<Student> specification = StudentSpecifications.hasStudentNumber(studentNumber);
+        if(!ifMatch.isAny()){
+            specification = specification.and(StudentSpecifications.hasVersionIn(ifMatch.getVersions()));
+        }
+        if(student.getSubscribeStart() != null && !fields.contains(StudentField.SUBSCRIBE_END)){
+            specification = specification.and(StudentSpecifications.subscriptionEndsOnOrAfter(student.getSubscribeStart()));
+        }
+        if(student.getSubscribeEnd() != null && !fields.contains(StudentField.SUBSCRIBE_START)){
+            specification = specification.and(StudentSpecifications.subscriptionStartsOnOrBefore(student.getSubscribeEnd()));
+        }
+        if(studentRepository.updateAttributes(specification, attributes) == 0){
+            StudentVersion version = studentRepository.findVersionByStudentNumber(studentNumber)
+                    .orElseThrow(() -> new IllegalArgumentException("Student does not exist"));
+            checkVersion("patch", studentNumber, ifMatch, version);
+            throw new IllegalArgumentException("Subscribe can't end before it starts");
+        }
+        // The student is not loaded: listeners that need it read it back after the commit.
+        eventPublisher.publishEvent(new StudentChangeEvent(StudentChangeEvent.Type.UPDATED, studentNumber, null));
+        if(ifMatch.getVersions().size() != 1){
+            return null;
+        }
+        StudentVersion matched = ifMatch.getVersions().iterator().next();
+        return new StudentVersion(matched.getId(), matched.getVersion() + 1);
+    }
+
+    // Deleted in one statement, without loading the student first.
+    public void deleteStudent(String studentNum, StudentIfMatch ifMatch){
+        log.info("Deleting student {}", studentNum);
+        requireIfMatch("delete", studentNum, ifMatch);
+        long deleted = ifMatch.isAny()
+                ? studentRepository.deleteByStudentNumber(studentNum)
+                : studentRepository.delete(StudentSpecifications.hasStudentNumber(studentNum)
+                        .and(StudentSpecifications.hasVersionIn(ifMatch.getVersions())));
+        if(deleted == 0){
+            StudentVersion version = studentRepository.findVersionByStudentNumber(studentNum)
+                    .orElseThrow(() -> new IllegalArgumentException("Student does not exist"));
+            throw conflict("delete", studentNum, version);
+        }
+        eventPublisher.publishEvent(new StudentChangeEvent(StudentChangeEvent.Type.DELETED, studentNum, null));
     }
 
     public void saveStudent(Student student){
         studentValidator.validate(student);
         studentRepository.save(student);
     }
+
+    private void requireIfMatch(String operation, String studentNumber, StudentIfMatch ifMatch){
+        if(!ifMatch.isPresent()){
+            meterRegistry.counter(VERSION_CONFLICTS, "operation", operation, "outcome", "required").increment();
+            throw new PreconditionRequiredException("If-Match is required to change student " + studentNumber);
+        }
+    }
+
+    private void checkVersion(String operation, String studentNumber, StudentIfMatch ifMatch, StudentVersion version){
+        requireIfMatch(operation, studentNumber, ifMatch);
+        if(!ifMatch.matches(version)){
+            throw conflict(operation, studentNumber, version);
+        }
+    }
+
+    private PreconditionFailedException conflict(String operation, String studentNumber, StudentVersion currentVersion){
+        meterRegistry.counter(VERSION_CONFLICTS, "operation", operation, "outcome", "failed").increment();
+        return new PreconditionFailedException("Student " + studentNumber + " was changed since the version in If-Match", currentVersion);
+    }
+
+    @FunctionalInterface
+    private interface PageQuery<T> {
+        List<T> read(Specification<Student> specification, Sort order, int limit);
+    }
+
+    private static Sort.Direction reverse(Sort.Direction direction){
+        return direction.isAscending() ? Sort.Direction.DESC : Sort.Direction.ASC;
+    }
 }
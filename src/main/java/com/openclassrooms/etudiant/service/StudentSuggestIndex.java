@@ -0,0 +1,393 @@
+package com.openclassrooms.etudiant.service;
+
+import com.openclassrooms.etudiant.dto.StudentSuggestionDTO;
+import com.openclassrooms.etudiant.entities.Student;
+import com.openclassrooms.etudiant.repository.StudentRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory trigram index over the student number, names and email, used for type-ahead suggestions.
+ * Each student is a document with a small int id; every trigram maps to the sorted ids of the documents
+ * containing it. A query scores the documents by the share of its trigrams they contain, which also
+ * tolerates typos. The index is loaded at startup and kept up to date from the committed student changes.
+ */
+@Slf4j
+@Service
+public class StudentSuggestIndex {
+    private final StudentRepository studentRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final double minCoverage;
+    private final int maxLimit;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, IntPostingList> postings = new HashMap<>();
+    private final Map<String, Integer> documentIds = new HashMap<>();
+    private final IntPostingList freeDocumentIds = new IntPostingList();
+    private String[][] documents = new String[1024][];
+    private long[][] documentTrigrams = new long[1024][];
+    private int documentCount;
+    private int nextDocumentId;
+
+    // Changes applied while the startup load runs win over the rows it reads afterwards. A change is recorded here
+    // before it is applied.
+    private volatile Set<String> changedDuringLoad;
+
+    public StudentSuggestIndex(StudentRepository studentRepository,
+                               EntityManager entityManager,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${student.suggest.min-coverage:0.4}") double minCoverage,
+                               @Value("${student.suggest.max-limit:50}") int maxLimit) {
+        this.studentRepository = studentRepository;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.minCoverage = minCoverage;
+        this.maxLimit = maxLimit;
+        Gauge.builder("student.suggest.index.bytes", this, StudentSuggestIndex::estimatedSizeInBytes)
+                .baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("student.suggest.index.documents", this, index -> index.documentCount).register(meterRegistry);
+        Gauge.builder("student.suggest.index.trigrams", this, index -> index.postings.size()).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.nanoTime();
+        changedDuringLoad = ConcurrentHashMap.newKeySet();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<Student> students = studentRepository.streamByStudentNumberGreaterThanOrderByStudentNumber("")) {
+                students.forEach(student -> {
+                    // Checked and put under the write lock, so a change cannot be applied in between and then overwritten.
+                    lock.writeLock().lock();
+                    try {
+                        if (!changedDuringLoad.contains(student.getStudentNumber())) {
+                            put(student);
+                        }
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                    entityManager.detach(student);
+                });
+            }
+        });
+        changedDuringLoad = null;
+        log.info("Student suggest index loaded with {} students in {} ms", documentCount, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStudentChange(StudentChangeEvent event) {
+        Set<String> changed = changedDuringLoad;
+        if (changed != null) {
+            changed.add(event.getStudentNumber());
+        }
+        if (event.getType() == StudentChangeEvent.Type.DELETED) {
+            remove(event.getStudentNumber());
+        } else if (event.getStudent() != null) {
+            put(event.getStudent());
+        } else {
+            studentRepository.findByStudentNumber(event.getStudentNumber())
+                    .ifPresentOrElse(this::put, () -> remove(event.getStudentNumber()));
+        }
+    }
+
+    public void put(Student student) {
+        String[] document = {student.getStudentNumber(), student.getFirstName(), student.getLastName(), student.getEmail()};
+        long[] trigrams = documentTrigrams(document);
+        lock.writeLock().lock();
+        try {
+            Integer existing = documentIds.get(student.getStudentNumber());
+            int id;
+            if (existing != null) {
+                id = existing;
+                for (long trigram : documentTrigrams[id]) {
+                    removePosting(trigram, id);
+                }
+            } else {
+                id = freeDocumentIds.size() > 0 ? freeDocumentIds.removeLast() : nextDocumentId++;
+                ensureCapacity(id + 1);
+                documentIds.put(student.getStudentNumber(), id);
+                documentCount++;
+            }
+            documents[id] = document;
+            documentTrigrams[id] = trigrams;
+            for (long trigram : trigrams) {
+                postings.computeIfAbsent(trigram, key -> new IntPostingList()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String studentNumber) {
+        lock.writeLock().lock();
+        try {
+            Integer id = documentIds.remove(studentNumber);
+            if (id == null) {
+                return;
+            }
+            for (long trigram : documentTrigrams[id]) {
+                removePosting(trigram, id);
+            }
+            documents[id] = null;
+            documentTrigrams[id] = null;
+            freeDocumentIds.add(id);
+            documentCount--;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<StudentSuggestionDTO> suggest(String query, int limit) {
+        if (limit < 1 || limit > maxLimit) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + maxLimit);
+        }
+        long[] queryTrigrams = queryTrigrams(query);
+        if (queryTrigrams.length == 0) {
+            return List.of();
+        }
+        int minShared = Math.max(1, (int) Math.ceil(queryTrigrams.length * minCoverage));
+        String normalizedQuery = normalize(query).trim();
+        PriorityQueue<Candidate> best = new PriorityQueue<>(limit + 1, Comparator.comparingDouble(Candidate::score)
+                .thenComparing(Comparator.comparingInt(Candidate::id).reversed()));
+        lock.readLock().lock();
+        try {
+            IntPostingList[] queryPostings = new IntPostingList[queryTrigrams.length];
+            int postingsLength = 0;
+            for (int t = 0; t < queryTrigrams.length; t++) {
+                queryPostings[t] = postings.get(queryTrigrams[t]);
+                postingsLength += queryPostings[t] != null ? queryPostings[t].size() : 0;
+            }
+            SharedCounts counts = new SharedCounts(Math.min(postingsLength, documentCount));
+            for (IntPostingList posting : queryPostings) {
+                if (posting == null) {
+                    continue;
+                }
+                for (int i = 0; i < posting.size(); i++) {
+                    counts.increment(posting.get(i));
+                }
+            }
+            for (int slot = 0; slot < counts.capacity(); slot++) {
+                int id = counts.id(slot);
+                if (id < 0 || counts.count(slot) < minShared) {
+                    continue;
+                }
+                // Coverage of the query first, then the shortest documents, and a bonus for a student number prefix.
+                double score = (double) counts.count(slot) / queryTrigrams.length
+                        - documentTrigrams[id].length / 10_000.0
+                        + (documents[id][0].regionMatches(true, 0, normalizedQuery, 0, normalizedQuery.length()) ? 1 : 0);
+                best.add(new Candidate(id, score));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            List<StudentSuggestionDTO> suggestions = new ArrayList<>(best.size());
+            while (!best.isEmpty()) {
+                Candidate candidate = best.poll();
+                String[] document = documents[candidate.id()];
+                suggestions.add(new StudentSuggestionDTO(document[0], document[1], document[2], document[3],
+                        Math.round(candidate.score() * 1000) / 1000.0));
+            }
+            Collections.reverse(suggestions);
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        return documentCount;
+    }
+
+    // Rough retained size: posting arrays, per-document trigrams and strings, plus the hash map entries.
+    public long estimatedSizeInBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = (long) postings.size() * 64 + (long) documentIds.size() * 64;
+            for (IntPostingList posting : postings.values()) {
+                bytes += 16 + 4L * posting.capacity();
+            }
+            for (int id = 0; id < nextDocumentId; id++) {
+                if (documents[id] != null) {
+                    bytes += 16 + 8L * documentTrigrams[id].length;
+                    for (String field : documents[id]) {
+                        bytes += field != null ? 40 + field.length() : 0;
+                    }
+                }
+            }
+            return bytes + 8L * documents.length * 2;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removePosting(long trigram, int id) {
+        IntPostingList posting = postings.get(trigram);
+        if (posting != null && posting.remove(id) && posting.size() == 0) {
+            postings.remove(trigram);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > documents.length) {
+            int newLength = Math.max(capacity, documents.length * 2);
+            documents = Arrays.copyOf(documents, newLength);
+            documentTrigrams = Arrays.copyOf(documentTrigrams, newLength);
+        }
+    }
+
+    static String normalize(String value) {
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFD);
+        StringBuilder normalized = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            normalized.append(Character.isLetterOrDigit(c) ? Character.toLowerCase(c) : ' ');
+        }
+        return normalized.toString();
+    }
+
+    private static long[] documentTrigrams(String[] fields) {
+        Set<Long> trigrams = new HashSet<>();
+        for (String field : fields) {
+            if (field != null) {
+                addTrigrams(normalize(field), true, trigrams);
+            }
+        }
+        return trigrams.stream().mapToLong(Long::longValue).sorted().toArray();
+    }
+
+    // The last word may still be typed, so it is matched as a prefix.
+    static long[] queryTrigrams(String query) {
+        Set<Long> trigrams = new HashSet<>();
+        if (query != null) {
+            addTrigrams(normalize(query), false, trigrams);
+        }
+        return trigrams.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static void addTrigrams(String normalized, boolean completeLastWord, Set<Long> trigrams) {
+        String[] words = normalized.trim().split(" +");
+        for (int w = 0; w < words.length; w++) {
+            if (words[w].isEmpty()) {
+                continue;
+            }
+            boolean complete = completeLastWord || w < words.length - 1;
+            String padded = "  " + words[w] + (complete ? " " : "");
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                trigrams.add(((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2));
+            }
+        }
+    }
+
+    private record Candidate(int id, double score) {
+    }
+
+    /**
+     * Number of query trigrams shared by each document a query touches, in an open-addressing table sized to the
+     * postings of the query rather than to the whole index.
+     */
+    static class SharedCounts {
+        // Document id + 1, 0 marks a free slot.
+        private final int[] ids;
+        private final int[] counts;
+        private final int mask;
+
+        SharedCounts(int expectedDocuments) {
+            int capacity = Integer.highestOneBit(Math.max(1, expectedDocuments) * 2 - 1) << 1;
+            this.ids = new int[capacity];
+            this.counts = new int[capacity];
+            this.mask = capacity - 1;
+        }
+
+        void increment(int id) {
+            int hash = id * 0x9E3779B9;
+            int slot = (hash ^ hash >>> 16) & mask;
+            while (ids[slot] != 0 && ids[slot] != id + 1) {
+                slot = (slot + 1) & mask;
+            }
+            ids[slot] = id + 1;
+            counts[slot]++;
+        }
+
+        int capacity() {
+            return ids.length;
+        }
+
+        // -1 for a free slot.
+        int id(int slot) {
+            return ids[slot] - 1;
+        }
+
+        int count(int slot) {
+            return counts[slot];
+        }
+    }
+
+    /**
+     * Growable array of ints kept sorted by {@link #add}, without boxing.
+     */
+    static class IntPostingList {
+        private int[] values = new int[4];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        int capacity() {
+            return values.length;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        void add(int value) {
+            int index = size == 0 || values[size - 1] < value ? size : Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0 && index < size) {
+                return;
+            }
+            int insertAt = index < 0 ? -index - 1 : index;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+            values[insertAt] = value;
+            size++;
+        }
+
+        boolean remove(int value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(values, index + 1, values, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        int removeLast() {
+            return values[--size];
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.openclassrooms.etudiant.service;
+
+import com.openclassrooms.etudiant.entities.Student;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class StudentUpsert {
+    // The student as persisted, flushed so that its generated values are set.
+    private final Student student;
+    private final boolean created;
+}
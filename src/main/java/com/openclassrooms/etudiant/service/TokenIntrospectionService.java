@@ -0,0 +1,103 @@
+package com.openclassrooms.etudiant.service;
+
+import com.openclassrooms.etudiant.configuration.security.JwtUtils;
+import com.openclassrooms.etudiant.dto.TokenIntrospectionDTO;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Introspects access tokens for the gateway and the sibling services. All the verifications share the
+ * parser and the claims cache of {@link JwtUtils}. Large batches are split across a small dedicated pool,
+ * so that they use a bounded number of cores; batches that find it saturated are rejected.
+ */
+@Service
+public class TokenIntrospectionService {
+    private static final TokenIntrospectionDTO INACTIVE = new TokenIntrospectionDTO(false, null, null);
+
+    private final JwtUtils jwtUtils;
+    private final TokenRevocationService tokenRevocationService;
+    private final int maxBatchSize;
+    private final int parallelThreshold;
+    private final int poolSize;
+    private final ThreadPoolExecutor pool;
+    private final ExecutorService executor;
+
+    public TokenIntrospectionService(JwtUtils jwtUtils,
+                                     TokenRevocationService tokenRevocationService,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${jwt.introspection.max-batch-size:1000}") int maxBatchSize,
+                                     @Value("${jwt.introspection.parallel-threshold:32}") int parallelThreshold,
+                                     @Value("${jwt.introspection.threads:0}") int threads,
+                                     @Value("${jwt.introspection.queue-capacity:64}") int queueCapacity) {
+        this.jwtUtils = jwtUtils;
+        this.tokenRevocationService = tokenRevocationService;
+        this.maxBatchSize = maxBatchSize;
+        this.parallelThreshold = parallelThreshold;
+        this.poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.pool = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("token-introspection-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "jwt.introspection");
+    }
+
+    public TokenIntrospectionDTO introspect(String token) {
+        Claims claims = jwtUtils.parseClaims(token);
+        if (claims == null || tokenRevocationService.isRevoked(claims.getId())) {
+            return INACTIVE;
+        }
+        Long exp = claims.getExpiration() != null
+                ? TimeUnit.MILLISECONDS.toSeconds(claims.getExpiration().getTime())
+                : null;
+        return new TokenIntrospectionDTO(true, claims.getSubject(), exp);
+    }
+
+    public List<TokenIntrospectionDTO> introspectAll(List<String> tokens) {
+        if (tokens.size() > maxBatchSize) {
+            throw new IllegalArgumentException("At most " + maxBatchSize + " tokens can be introspected at once");
+        }
+        // Below the threshold handing the work over costs more than the HMAC checks it spreads.
+        if (tokens.size() < parallelThreshold) {
+            return tokens.stream().map(this::introspect).toList();
+        }
+        int sliceSize = (tokens.size() + poolSize - 1) / poolSize;
+        List<Future<List<TokenIntrospectionDTO>>> slices = new ArrayList<>();
+        try {
+            for (int from = 0; from < tokens.size(); from += sliceSize) {
+                List<String> slice = tokens.subList(from, Math.min(from + sliceSize, tokens.size()));
+                slices.add(executor.submit(() -> slice.stream().map(this::introspect).toList()));
+            }
+            List<TokenIntrospectionDTO> introspections = new ArrayList<>(tokens.size());
+            for (Future<List<TokenIntrospectionDTO>> slice : slices) {
+                introspections.addAll(slice.get());
+            }
+            return introspections;
+        } catch (RejectedExecutionException e) {
+            slices.forEach(slice -> slice.cancel(false));
+            throw new RejectedExecutionException("Token introspection is saturated, try again later");
+        } catch (InterruptedException e) {
+            slices.forEach(slice -> slice.cancel(false));
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Token introspection was interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
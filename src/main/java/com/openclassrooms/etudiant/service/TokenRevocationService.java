@@ -0,0 +1,112 @@
+package com.openclassrooms.etudiant.service;
+
+import com.openclassrooms.etudiant.configuration.security.RevokedTokenBloomFilter;
+import com.openclassrooms.etudiant.entities.RevokedToken;
+import com.openclassrooms.etudiant.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps an in-memory Bloom filter of the revoked access tokens. It is fed by this instance's own
+ * revocations and, incrementally, by the rows the other instances insert in the revocation table.
+ * The database is only queried when the filter answers "maybe revoked".
+ */
+@Slf4j
+@Service
+public class TokenRevocationService {
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final Counter exactLookups;
+
+    // Not synchronized: a virtual thread blocked on the database inside a monitor would pin its carrier.
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile RevokedTokenBloomFilter bloomFilter;
+    private volatile long lastSyncedId;
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${jwt.revocation.expected-insertions:100000}") long expectedInsertions,
+                                  @Value("${jwt.revocation.false-positive-rate:0.001}") double falsePositiveRate) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.bloomFilter = new RevokedTokenBloomFilter(expectedInsertions, falsePositiveRate);
+        this.exactLookups = Counter.builder("jwt.revocation.exact-lookups").register(meterRegistry);
+        Gauge.builder("jwt.revocation.bloom.bytes", this, service -> service.bloomFilter.sizeInBytes())
+                .register(meterRegistry);
+    }
+
+    public boolean isRevoked(String jti) {
+        if (jti == null || !bloomFilter.mightContain(jti)) {
+            return false;
+        }
+        exactLookups.increment();
+        return revokedTokenRepository.existsByJti(jti);
+    }
+
+    public void revoke(String jti, LocalDateTime expiresAt) {
+        if (jti == null) {
+            return;
+        }
+        // Written at once and ignored when the token was already revoked: a duplicate saved in the caller's
+        // transaction would only fail at its commit.
+        if (revokedTokenRepository.insertIgnore(jti, expiresAt) == 0) {
+            log.debug("Token {} was already revoked", jti);
+        }
+        bloomFilter.put(jti);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.sync-interval:5s}")
+    public void sync() {
+        lock.lock();
+        try {
+            lastSyncedId = load(bloomFilter, lastSyncedId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Revoked tokens stop mattering once expired: they are purged and the filter is rebuilt without them.
+    @PostConstruct
+    @Scheduled(cron = "${jwt.revocation.rebuild-cron:0 0 * * * *}")
+    public void rebuild() {
+        lock.lock();
+        try {
+            int purged = revokedTokenRepository.deleteExpired(LocalDateTime.now());
+            RevokedTokenBloomFilter rebuilt = new RevokedTokenBloomFilter(expectedInsertions, falsePositiveRate);
+            long lastId = load(rebuilt, 0);
+            bloomFilter = rebuilt;
+            lastSyncedId = lastId;
+            // Catches the revocations inserted while the new filter was loading.
+            sync();
+            log.info("Revoked tokens filter rebuilt, {} expired revocations purged", purged);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long load(RevokedTokenBloomFilter filter, long fromId) {
+        long lastId = fromId;
+        List<RevokedToken> revokedTokens;
+        do {
+            revokedTokens = revokedTokenRepository.findTop1000ByIdGreaterThanOrderByIdAsc(lastId);
+            for (RevokedToken revokedToken : revokedTokens) {
+                filter.put(revokedToken.getJti());
+                lastId = revokedToken.getId();
+            }
+        } while (!revokedTokens.isEmpty());
+        return lastId;
+    }
+}
@@ -1,17 +1,20 @@
 package com.openclassrooms.etudiant.service;
 
+import com.openclassrooms.etudiant.configuration.security.CustomUserDetailService;
 import com.openclassrooms.etudiant.configuration.security.JwtUtils;
+import com.openclassrooms.etudiant.configuration.security.PasswordHasher;
+import com.openclassrooms.etudiant.dto.AuthTokensDTO;
 import com.openclassrooms.etudiant.entities.User;
 import com.openclassrooms.etudiant.repository.UserRepository;
+import io.jsonwebtoken.Claims;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Optional;
 
 @Slf4j
@@ -19,10 +22,12 @@ import java.util.Optional;
 @Transactional
 @RequiredArgsConstructor
 public class UserService {
-    private final AuthenticationManager authenticationManager;
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final JwtUtils jwtUtils;
+    private final CustomUserDetailService userDetailService;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationService tokenRevocationService;
 
     public void register(User user) {
         Assert.notNull(user, "User must not be null");
@@ -32,19 +37,47 @@ public class UserService {
         if (optionalUser.isPresent()) {
             throw new IllegalArgumentException("User with login " + user.getLogin() + " already exists");
         }
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
+        user.setPassword(passwordHasher.encode(user.getPassword()));
         userRepository.save(user);
+        userDetailService.evict(user.getLogin());
     }
 
     public String login(String login, String password) {
+        return jwtUtils.generateToken(authenticate(login, password));
+    }
+
+    public AuthTokensDTO loginWithRefreshToken(String login, String password) {
+        User user = authenticate(login, password);
+        return new AuthTokensDTO(jwtUtils.generateToken(user), refreshTokenService.issue(user));
+    }
+
+    // Authenticated by the refresh token, the access token may have expired already. It is revoked when it is still
+    // valid and belongs to the same user.
+    public void logout(String accessToken, String refreshToken) {
+        User user = refreshTokenService.revoke(refreshToken);
+        Claims claims = jwtUtils.parseClaims(accessToken);
+        if (claims != null && user.getUsername().equals(claims.getSubject())) {
+            tokenRevocationService.revoke(claims.getId(),
+                    LocalDateTime.ofInstant(claims.getExpiration().toInstant(), ZoneId.systemDefault()));
+        }
+    }
+
+    private User authenticate(String login, String password) {
         Assert.notNull(login, "Login must not be null");
         Assert.notNull(password, "Password must not be null");
         User user = userRepository.findByLogin(login).stream().findFirst()
                 .orElseThrow(() -> new IllegalArgumentException("User does not exist"));
-        if(!passwordEncoder.matches(password, user.getPassword())){
+        if(!passwordHasher.matches(password, user.getPassword())){
             throw new IllegalArgumentException("Password does not match");
         }
-        authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(login, password));
-        return jwtUtils.generateToken(login);
+        // The password was just verified, so the stored hash can be upgraded if the BCrypt strength was raised.
+        if(passwordHasher.upgradeEncoding(user.getPassword())){
+            log.info("Rehashing password of user {}", login);
+            // Conditional on the version, so that a concurrent login that rehashed first is not overwritten nor failed.
+            if(userRepository.updatePassword(user.getId(), user.getVersion(), passwordHasher.encode(password), LocalDateTime.now()) > 0){
+                userDetailService.evict(login);
+            }
+        }
+        return user;
     }
 }
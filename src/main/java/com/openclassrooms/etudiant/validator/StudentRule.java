@@ -0,0 +1,113 @@
+package com.openclassrooms.etudiant.validator;
+
+import com.openclassrooms.etudiant.entities.Student;
+
+import java.time.LocalDate;
+import java.util.function.Predicate;
+
+/**
+ * The business rules of a student. The phone and email formats are checked against lookup tables built once,
+ * the same character classes as the patterns ^[+]?[0-9\s]+$ and ^[a-zA-Z0-9_!#$%&’*+/=?`{|}~^.-]+@[a-zA-Z0-9.-]+$
+ * without compiling or matching a regex per student.
+ */
+enum StudentRule {
+    FIRST_NAME_LENGTH("firstName", false, "firstName.toolong", "First name is too long") {
+        @Override
+        boolean isValid(Student student, LocalDate today) {
+            return student.getFirstName() == null || student.getFirstName().length() <= MAX_NAME_LENGTH;
+        }
+    },
+    LAST_NAME_LENGTH("lastName", false, "lastName.toolong", "Last name is too long") {
+        @Override
+        boolean isValid(Student student, LocalDate today) {
+            return student.getLastName() == null || student.getLastName().length() <= MAX_NAME_LENGTH;
+        }
+    },
+    BIRTH_DATE_PAST("birthDate", false, "birthDate.impossible", "Student isn't born yet") {
+        @Override
+        boolean isValid(Student student, LocalDate today) {
+            return student.getBirthDate() == null || !student.getBirthDate().isAfter(today);
+        }
+    },
+    PHONE_NUMBER_FORMAT("phoneNumber", false, "phone.incorrect", "Phone number is incorrect") {
+        @Override
+        boolean isValid(Student student, LocalDate today) {
+            String phoneNumber = student.getPhoneNumber();
+            if (phoneNumber == null || phoneNumber.isBlank()) {
+                return true;
+            }
+            int start = phoneNumber.charAt(0) == '+' ? 1 : 0;
+            return start < phoneNumber.length() && allIn(phoneNumber, start, phoneNumber.length(), PHONE_CHARS);
+        }
+    },
+    EMAIL_FORMAT("email", false, "email.incorrect", "Email is incorrect") {
+        @Override
+        boolean isValid(Student student, LocalDate today) {
+            String email = student.getEmail();
+            if (email == null || email.isEmpty()) {
+                return true;
+            }
+            int at = email.indexOf('@');
+            // Neither character class contains @, so a second one fails the domain check.
+            return at > 0 && at < email.length() - 1
+                    && allIn(email, 0, at, EMAIL_LOCAL_CHARS)
+                    && allIn(email, at + 1, email.length(), EMAIL_DOMAIN_CHARS);
+        }
+    },
+    // Checked whatever the properties given, like before partial validation existed.
+    SUBSCRIPTION_ORDER("subscribeEnd", true, "subscribeEnd.impossible", "Subscribe can't end before it starts") {
+        @Override
+        boolean isValid(Student student, LocalDate today) {
+            return student.getSubscribeStart() == null || student.getSubscribeEnd() == null
+                    || !student.getSubscribeStart().isAfter(student.getSubscribeEnd());
+        }
+    };
+
+    private static final int MAX_NAME_LENGTH = 60;
+    private static final boolean[] PHONE_CHARS = chars("0123456789 \t\n\u000B\f\r");
+    private static final boolean[] EMAIL_LOCAL_CHARS = chars(alphanumerics() + "_!#$%&’*+/=?`{|}~^.-");
+    private static final boolean[] EMAIL_DOMAIN_CHARS = chars(alphanumerics() + ".-");
+
+    private final boolean checkedAlways;
+    // Immutable, so shared by every student breaking the rule.
+    private final StudentViolation violation;
+
+    StudentRule(String property, boolean checkedAlways, String code, String message) {
+        this.checkedAlways = checkedAlways;
+        this.violation = new StudentViolation(property, code, message);
+    }
+
+    abstract boolean isValid(Student student, LocalDate today);
+
+    boolean isCheckedFor(Predicate<String> properties) {
+        return checkedAlways || properties.test(violation.getProperty());
+    }
+
+    StudentViolation getViolation() {
+        return violation;
+    }
+
+    private static boolean allIn(String value, int from, int to, boolean[] table) {
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c >= table.length || !table[c]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean[] chars(String allowed) {
+        boolean[] table = new boolean[allowed.chars().max().orElse(0) + 1];
+        allowed.chars().forEach(c -> table[c] = true);
+        return table;
+    }
+
+    private static String alphanumerics() {
+        StringBuilder alphanumerics = new StringBuilder();
+        for (char c = 'a'; c <= 'z'; c++) {
+            alphanumerics.append(c).append(Character.toUpperCase(c));
+        }
+        return alphanumerics.append("0123456789").toString();
+    }
+}
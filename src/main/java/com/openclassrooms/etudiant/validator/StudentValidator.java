@@ -1,50 +1,103 @@
 package com.openclassrooms.etudiant.validator;
 
 import com.openclassrooms.etudiant.entities.Student;
-import org.apache.logging.log4j.util.Strings;
-import org.springframework.validation.BeanPropertyBindingResult;
 import org.springframework.validation.Errors;
 import org.springframework.validation.ObjectError;
 import org.springframework.validation.Validator;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+/**
+ * Checks the {@link StudentRule}s. A valid student costs no allocation: the violations list is only created for
+ * an invalid one, and the violations themselves are shared constants.
+ */
 public class StudentValidator implements Validator {
+    // Below this size, splitting a list across threads costs more than it saves.
+    private static final int PARALLEL_THRESHOLD = 2048;
+    private static final StudentRule[] RULES = StudentRule.values();
+
     @Override
     public boolean supports(Class<?> clazz) {
         return Student.class.isAssignableFrom(clazz);
     }
 
     public void validate(Student student){
-        Errors errors = new BeanPropertyBindingResult(student, "student");
-        this.validate(student, errors);
+        throwIfInvalid(check(student));
+    }
+
+    /**
+     * Only checks the given properties, for a partial update that leaves the others as they are in the database.
+     */
+    public void validate(Student student, Collection<String> properties){
+        throwIfInvalid(check(student, properties::contains, LocalDate.now()));
     }
 
     @Override
     public void validate(Object target, Errors errors) {
-        Student student = (Student) target;
-        LocalDate today = LocalDate.now();
-        if(student.getFirstName().length() > 60){
-            errors.rejectValue("firstName", "firstName.toolong", "First name is too long");
-        }
-        if(student.getLastName().length() > 60){
-            errors.rejectValue("lastName", "lastName.toolong", "Last name is too long");
+        for (StudentViolation violation : check((Student) target)) {
+            errors.rejectValue(violation.getProperty(), violation.getCode(), violation.getMessage());
         }
-        if(student.getBirthDate().isAfter(today)){
-            errors.rejectValue("birthDate", "birthDate.impossible", "Student isn't born yet");
-        }
-        if(Strings.isNotBlank(student.getPhoneNumber()) && !student.getPhoneNumber().matches("^[+]?[0-9\\s]+$")){
-            errors.rejectValue("phoneNumber", "phone.incorrect", "Phone number is incorrect");
+        if (errors.hasErrors()) {
+            throw new IllegalArgumentException(errors.getAllErrors().stream()
+                    .map(ObjectError::getDefaultMessage)
+                    .collect(Collectors.joining(". ")));
         }
-        if(!Strings.isEmpty(student.getEmail()) && !student.getEmail().matches("^[a-zA-Z0-9_!#$%&’*+/=?`{|}~^.-]+@[a-zA-Z0-9.-]+$")){
-            errors.rejectValue("email", "email.incorrect", "Email is incorrect");
+    }
+
+    /**
+     * The rules the student breaks, in rule order. Empty when the student is valid.
+     */
+    public List<StudentViolation> check(Student student) {
+        return check(student, property -> true, LocalDate.now());
+    }
+
+    /**
+     * The violations of each student, at the same index. Large lists are checked in parallel. Null students
+     * have no violations: they are the caller's to reject.
+     */
+    public List<List<StudentViolation>> checkAll(List<Student> students) {
+        LocalDate today = LocalDate.now();
+        @SuppressWarnings("unchecked")
+        List<StudentViolation>[] violations = new List[students.size()];
+        IntStream indexes = IntStream.range(0, students.size());
+        if (students.size() >= PARALLEL_THRESHOLD) {
+            indexes = indexes.parallel();
         }
-        if(student.getSubscribeStart() != null && student.getSubscribeEnd() != null && student.getSubscribeStart().isAfter(student.getSubscribeEnd())){
-            errors.rejectValue("subscribeEnd", "subscribeEnd.impossible", "Subscribe can't end before it starts");
+        indexes.forEach(i -> violations[i] = students.get(i) == null ? List.of()
+                : check(students.get(i), property -> true, today));
+        return Arrays.asList(violations);
+    }
+
+    /**
+     * The messages of the violations, as in the exception thrown by the validate methods.
+     */
+    public static String describe(List<StudentViolation> violations) {
+        return violations.stream().map(StudentViolation::getMessage).collect(Collectors.joining(". "));
+    }
+
+    private List<StudentViolation> check(Student student, Predicate<String> checked, LocalDate today) {
+        List<StudentViolation> violations = null;
+        for (StudentRule rule : RULES) {
+            if (rule.isCheckedFor(checked) && !rule.isValid(student, today)) {
+                if (violations == null) {
+                    violations = new ArrayList<>(2);
+                }
+                violations.add(rule.getViolation());
+            }
         }
-        if (errors.hasErrors()) {
-            throw new IllegalArgumentException(errors.getAllErrors().stream().map(ObjectError::getDefaultMessage).collect(Collectors.joining(". ")));
+        return violations == null ? List.of() : violations;
+    }
+
+    private void throwIfInvalid(List<StudentViolation> violations) {
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(describe(violations));
         }
     }
 }
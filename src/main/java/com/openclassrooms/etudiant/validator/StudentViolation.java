@@ -0,0 +1,13 @@
+package com.openclassrooms.etudiant.validator;
+
+import lombok.Value;
+
+/**
+ * A rule of {@link StudentValidator} broken by a student, on the property it is reported on.
+ */
+@Value
+public class StudentViolation {
+    String property;
+    String code;
+    String message;
+}
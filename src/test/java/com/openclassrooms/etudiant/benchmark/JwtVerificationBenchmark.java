@@ -0,0 +1,71 @@
+package com.openclassrooms.etudiant.benchmark;
+
+import com.openclassrooms.etudiant.configuration.security.JwtUtils;
+import com.openclassrooms.etudiant.entities.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the historical JWT path of AuthTokenFilter (validate then read the subject, rebuilding the
+ * parser and the key each time) with the single-parse and cached paths of JwtUtils.
+ * Run with: mvn -Pbenchmark verify -DskipTests -Dbenchmark=JwtVerificationBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+    private static final String SECRET = "Vw0ThEB/ia7oHF6BPE9ARyLGIstx/P07XuUmQKO7I1o=";
+
+    private JwtUtils jwtUtils;
+    private JwtParser sharedParser;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "JWT_SECRET", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "JWT_EXPIRATION_IN_MS", 3600000);
+        ReflectionTestUtils.setField(jwtUtils, "JWT_CACHE_MAX_SIZE", 10000L);
+        ReflectionTestUtils.setField(jwtUtils, "meterRegistry", new SimpleMeterRegistry());
+        jwtUtils.init();
+        sharedParser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build();
+        User user = new User();
+        user.setId(1L);
+        user.setLogin("login");
+        token = jwtUtils.generateToken(user);
+    }
+
+    @Benchmark
+    public String legacyValidateThenParse() {
+        Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes())).build().parseClaimsJws(token);
+        return Jwts.parserBuilder()
+                .setSigningKey(SECRET.getBytes()).build()
+                .parseClaimsJws(token)
+                .getBody()
+                .getSubject();
+    }
+
+    @Benchmark
+    public String singleParseSharedParser() {
+        return sharedParser.parseClaimsJws(token).getBody().getSubject();
+    }
+
+    @Benchmark
+    public String cachedClaims() {
+        Claims claims = jwtUtils.parseClaims(token);
+        return claims.getSubject();
+    }
+}
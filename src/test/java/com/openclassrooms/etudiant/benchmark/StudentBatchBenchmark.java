@@ -0,0 +1,76 @@
+package com.openclassrooms.etudiant.benchmark;
+
+import com.openclassrooms.etudiant.EtudiantBackendApplication;
+import com.openclassrooms.etudiant.dto.StudentBatchResultDTO;
+import com.openclassrooms.etudiant.dto.StudentDTO;
+import com.openclassrooms.etudiant.service.StudentBatchService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.MySQLContainer;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Imports batches of new students into MySQL through StudentBatchService. Scores are students per second.
+ * Run with: mvn -Pbenchmark verify -DskipTests -Dbenchmark=StudentBatchBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class StudentBatchBenchmark {
+    private static final int BATCH_SIZE = 10000;
+
+    private MySQLContainer<?> mySQLContainer;
+    private ConfigurableApplicationContext context;
+    private StudentBatchService studentBatchService;
+    private int batch;
+
+    @Setup
+    public void setup() {
+        mySQLContainer = new MySQLContainer<>("mysql:8.0.44");
+        mySQLContainer.start();
+        context = new SpringApplicationBuilder(EtudiantBackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=" + mySQLContainer.getJdbcUrl(),
+                        "spring.datasource.username=" + mySQLContainer.getUsername(),
+                        "spring.datasource.password=" + mySQLContainer.getPassword(),
+                        "spring.jpa.hibernate.ddl-auto=create",
+                        "spring.jpa.show-sql=false",
+                        "spring.docker.compose.enabled=false")
+                .run();
+        studentBatchService = context.getBean(StudentBatchService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        mySQLContainer.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public StudentBatchResultDTO importBatch() {
+        int current = batch++;
+        List<StudentDTO> students = IntStream.range(0, BATCH_SIZE).mapToObj(i -> {
+            StudentDTO student = new StudentDTO();
+            student.setStudentNumber(String.format("%05d%05d", current, i));
+            student.setFirstName("First" + i % 1000);
+            student.setLastName("Last" + i % 5000);
+            student.setBirthDate(LocalDate.of(2000, 1, 1).minusDays(i % 8000));
+            student.setEmail("student" + i + "@example.com");
+            student.setSubscribeStart(LocalDate.of(2026, 9, 1));
+            student.setSubscribeEnd(LocalDate.of(2027, 6, 30));
+            return student;
+        }).toList();
+        return studentBatchService.createStudents(students);
+    }
+}
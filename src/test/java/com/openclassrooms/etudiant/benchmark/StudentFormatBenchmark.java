@@ -0,0 +1,90 @@
+package com.openclassrooms.etudiant.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.openclassrooms.etudiant.configuration.AppConfig;
+import com.openclassrooms.etudiant.dto.StudentDTO;
+import com.openclassrooms.etudiant.dto.StudentPageDTO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serializes and parses a full page of students in each format offered by StudentController, with the
+ * object mappers configured as in AppConfig. Payload sizes, raw and gzipped, are printed at setup.
+ * Run with: mvn -Pbenchmark verify -DskipTests -Dbenchmark=StudentFormatBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StudentFormatBenchmark {
+    private static final int PAGE_SIZE = 500;
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    private ObjectMapper objectMapper;
+    private JavaType pageType;
+    private StudentPageDTO<StudentDTO> page;
+    private byte[] payload;
+
+    @Setup
+    public void setup() throws IOException {
+        Jackson2ObjectMapperBuilder builder = new Jackson2ObjectMapperBuilder();
+        new AppConfig().jackson2ObjectMapperBuilderCustomizer().customize(builder);
+        objectMapper = builder.factory(factory()).build();
+        pageType = objectMapper.getTypeFactory().constructParametricType(StudentPageDTO.class, StudentDTO.class);
+        page = new StudentPageDTO<>(IntStream.range(0, PAGE_SIZE).mapToObj(this::student).toList(), "U1RVREVOVF9OVU1CRVJ8QVNDfGZ8NTAwfHYwMDAwMDUwMA", null);
+        payload = objectMapper.writeValueAsBytes(page);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(payload);
+        }
+        System.out.printf("%n%s: %d bytes, %d bytes gzipped%n", format, payload.length, compressed.size());
+    }
+
+    private JsonFactory factory() {
+        return switch (format) {
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> new JsonFactory();
+        };
+    }
+
+    private StudentDTO student(int i) {
+        StudentDTO student = new StudentDTO();
+        student.setStudentNumber(String.format("%08d", i));
+        student.setFirstName("First" + i % 1000);
+        student.setLastName("Last" + i % 5000);
+        student.setBirthDate(LocalDate.of(2000, 1, 1).minusDays(i));
+        student.setEmail("student" + i + "@example.com");
+        student.setPhoneNumber(String.format("06%08d", i));
+        student.setSubscribeStart(LocalDate.of(2026, 1, 1));
+        student.setSubscribeEnd(LocalDate.of(2027, 1, 1).plusDays(i % 365));
+        return student;
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public List<StudentDTO> deserialize() throws IOException {
+        StudentPageDTO<StudentDTO> read = objectMapper.readValue(payload, pageType);
+        return read.getContent();
+    }
+}
@@ -0,0 +1,114 @@
+package com.openclassrooms.etudiant.benchmark;
+
+import com.openclassrooms.etudiant.EtudiantBackendApplication;
+import com.openclassrooms.etudiant.dto.StudentDTO;
+import com.openclassrooms.etudiant.service.StudentBatchService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.MySQLContainer;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Load test of the HTTP API against MySQL, with requests served on Tomcat's platform thread pool or on virtual
+ * threads. More clients than Tomcat threads search students by last name, which needs a database connection
+ * each time. Throughput is in requests per millisecond and the sample time mode reports the p99 latency.
+ * Run with: mvn -Pbenchmark verify -DskipTests -Dbenchmark=StudentLoadBenchmark
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Threads(400)
+@Fork(1)
+public class StudentLoadBenchmark {
+    private static final int STUDENTS = 5000;
+    private static final int LAST_NAMES = 500;
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    private MySQLContainer<?> mySQLContainer;
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private String baseUrl;
+    private String authorization;
+
+    @Setup
+    public void setup() throws IOException, InterruptedException {
+        mySQLContainer = new MySQLContainer<>("mysql:8.0.44");
+        mySQLContainer.start();
+        context = new SpringApplicationBuilder(EtudiantBackendApplication.class)
+                .properties(
+                        "spring.datasource.url=" + mySQLContainer.getJdbcUrl(),
+                        "spring.datasource.username=" + mySQLContainer.getUsername(),
+                        "spring.datasource.password=" + mySQLContainer.getPassword(),
+                        "spring.jpa.hibernate.ddl-auto=create",
+                        "spring.jpa.show-sql=false",
+                        "spring.docker.compose.enabled=false",
+                        "spring.threads.virtual.enabled=" + threads.equals("virtual"),
+                        // Every client may wait for a connection, as they all may in Tomcat's accept queue.
+                        "datasource.limiter.max-waiting=1000",
+                        "logging.level.org.springframework.web.filter.CommonsRequestLoggingFilter=warn",
+                        "server.port=0")
+                .run();
+        context.getBean(StudentBatchService.class).createStudents(IntStream.range(0, STUDENTS).mapToObj(this::student).toList());
+
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/register"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"firstName\":\"Load\",\"lastName\":\"Test\",\"login\":\"load\",\"password\":\"password\"}")));
+        String token = send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/login?login=load&password=password"))
+                .POST(HttpRequest.BodyPublishers.noBody())).body();
+        authorization = "Bearer " + token;
+    }
+
+    private StudentDTO student(int i) {
+        StudentDTO student = new StudentDTO();
+        student.setStudentNumber(String.format("%08d", i));
+        student.setFirstName("First" + i % 1000);
+        student.setLastName("Last" + i % LAST_NAMES);
+        student.setBirthDate(LocalDate.of(2000, 1, 1).minusDays(i % 8000));
+        student.setEmail("student" + i + "@example.com");
+        student.setSubscribeStart(LocalDate.of(2026, 9, 1));
+        student.setSubscribeEnd(LocalDate.of(2027, 6, 30));
+        return student;
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        mySQLContainer.stop();
+    }
+
+    @Benchmark
+    public int search() throws IOException, InterruptedException {
+        String lastName = "Last" + ThreadLocalRandom.current().nextInt(LAST_NAMES);
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/student/search?size=20&lastName=" + lastName))
+                .header("Authorization", authorization)
+                .GET()).statusCode();
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(request.timeout(Duration.ofSeconds(30)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(response.statusCode() + " " + response.body());
+        }
+        return response;
+    }
+}
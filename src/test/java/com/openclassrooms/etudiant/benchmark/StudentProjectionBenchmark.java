@@ -0,0 +1,97 @@
+package com.openclassrooms.etudiant.benchmark;
+
+import com.openclassrooms.etudiant.EtudiantBackendApplication;
+import com.openclassrooms.etudiant.dto.StudentDTO;
+import com.openclassrooms.etudiant.service.StudentField;
+import com.openclassrooms.etudiant.service.StudentService;
+import com.openclassrooms.etudiant.service.StudentSort;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.MySQLContainer;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Reads the same page of a large student table as entities mapped to StudentDTO, as the listing does
+ * without fields, and as a projection of the three columns a list screen shows.
+ * The gc profiler reports the allocation per page (gc.alloc.rate.norm).
+ * Run with: mvn -Pbenchmark verify -DskipTests -Dbenchmark=StudentProjectionBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StudentProjectionBenchmark {
+    private static final int ROWS = 200000;
+    private static final LocalDate ORIGIN = LocalDate.of(2000, 1, 1);
+    private static final Set<StudentField> LIST_FIELDS =
+            StudentField.parse("studentNumber,firstName,lastName");
+
+    @Param({"50", "500"})
+    private int pageSize;
+
+    private MySQLContainer<?> mySQLContainer;
+    private ConfigurableApplicationContext context;
+    private StudentService studentService;
+
+    @Setup
+    public void setup() {
+        mySQLContainer = new MySQLContainer<>("mysql:8.0.44");
+        mySQLContainer.start();
+        context = new SpringApplicationBuilder(EtudiantBackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=" + mySQLContainer.getJdbcUrl(),
+                        "spring.datasource.username=" + mySQLContainer.getUsername(),
+                        "spring.datasource.password=" + mySQLContainer.getPassword(),
+                        "spring.jpa.hibernate.ddl-auto=create",
+                        "spring.jpa.show-sql=false",
+                        "spring.docker.compose.enabled=false",
+                        "student.page.max-size=500")
+                .run();
+        studentService = context.getBean(StudentService.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.batchUpdate("insert into student (student_num, first_name, last_name, birth_date, email, phone_num, sub_start, sub_end) "
+                        + "values (?, ?, ?, ?, ?, ?, ?, ?)",
+                IntStream.range(0, ROWS).mapToObj(i -> new Object[]{
+                        String.format("%08d", i),
+                        "First" + (i % 1000),
+                        "Last" + (i % 5000),
+                        Date.valueOf(ORIGIN.minusDays(i % 8000)),
+                        "student" + i + "@example.com",
+                        String.format("06%08d", i),
+                        Date.valueOf(ORIGIN.plusDays(i % 365)),
+                        Date.valueOf(ORIGIN.plusDays(365 + i % 3650))
+                }).toList());
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        mySQLContainer.stop();
+    }
+
+    @Benchmark
+    public List<StudentDTO> entities() {
+        return studentService.getStudentsPage(StudentSort.LAST_NAME, Sort.Direction.ASC, pageSize, null)
+                .getContent();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> projection() {
+        return studentService.getStudentsPage(LIST_FIELDS, StudentSort.LAST_NAME, Sort.Direction.ASC, pageSize, null)
+                .getContent();
+    }
+}
@@ -0,0 +1,107 @@
+package com.openclassrooms.etudiant.benchmark;
+
+import com.openclassrooms.etudiant.entities.Student;
+import com.openclassrooms.etudiant.validator.StudentValidator;
+import com.openclassrooms.etudiant.validator.StudentViolation;
+import org.apache.logging.log4j.util.Strings;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.ObjectError;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Validates a bulk load of students, about one in twenty of them invalid, with StudentValidator, one at a time
+ * and as a list, and with the former regex-based implementation it replaced. Scores are students per second.
+ * Run with: mvn -Pbenchmark verify -DskipTests -Dbenchmark=StudentValidatorBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StudentValidatorBenchmark {
+    private static final int STUDENTS = 10000;
+
+    private final StudentValidator validator = new StudentValidator();
+    private List<Student> students;
+
+    @Setup
+    public void setup() {
+        students = IntStream.range(0, STUDENTS).mapToObj(this::student).toList();
+    }
+
+    private Student student(int i) {
+        Student student = new Student();
+        student.setStudentNumber(String.format("%08d", i));
+        student.setFirstName("First" + i % 1000);
+        student.setLastName("Last" + i % 5000);
+        student.setBirthDate(LocalDate.of(2000, 1, 1).minusDays(i % 8000));
+        student.setEmail(i % 40 == 0 ? "student" + i + "@example@com" : "first.last" + i + "@example.com");
+        student.setPhoneNumber(i % 3 == 0 ? null : i % 40 == 1 ? "06-06-06-06" : String.format("+33 6 %08d", i));
+        student.setSubscribeStart(LocalDate.of(2026, 9, 1));
+        student.setSubscribeEnd(LocalDate.of(2027, 6, 30));
+        return student;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STUDENTS)
+    public void regex(Blackhole blackhole) {
+        for (Student student : students) {
+            try {
+                formerValidate(student);
+                blackhole.consume(true);
+            } catch (IllegalArgumentException e) {
+                blackhole.consume(e.getMessage());
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STUDENTS)
+    public void rules(Blackhole blackhole) {
+        for (Student student : students) {
+            blackhole.consume(validator.check(student));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STUDENTS)
+    public List<List<StudentViolation>> rulesList() {
+        return validator.checkAll(students);
+    }
+
+    // StudentValidator.validate as it was before the rules were precompiled.
+    private static void formerValidate(Student student) {
+        Errors errors = new BeanPropertyBindingResult(student, "student");
+        LocalDate today = LocalDate.now();
+        if (student.getFirstName().length() > 60) {
+            errors.rejectValue("firstName", "firstName.toolong", "First name is too long");
+        }
+        if (student.getLastName().length() > 60) {
+            errors.rejectValue("lastName", "lastName.toolong", "Last name is too long");
+        }
+        if (student.getBirthDate().isAfter(today)) {
+            errors.rejectValue("birthDate", "birthDate.impossible", "Student isn't born yet");
+        }
+        if (Strings.isNotBlank(student.getPhoneNumber()) && !student.getPhoneNumber().matches("^[+]?[0-9\\s]+$")) {
+            errors.rejectValue("phoneNumber", "phone.incorrect", "Phone number is incorrect");
+        }
+        if (!Strings.isEmpty(student.getEmail()) && !student.getEmail().matches("^[a-zA-Z0-9_!#$%&’*+/=?`{|}~^.-]+@[a-zA-Z0-9.-]+$")) {
+            errors.rejectValue("email", "email.incorrect", "Email is incorrect");
+        }
+        if (student.getSubscribeStart() != null && student.getSubscribeEnd() != null && student.getSubscribeStart().isAfter(student.getSubscribeEnd())) {
+            errors.rejectValue("subscribeEnd", "subscribeEnd.impossible", "Subscribe can't end before it starts");
+        }
+        if (errors.hasErrors()) {
+            throw new IllegalArgumentException(errors.getAllErrors().stream().map(ObjectError::getDefaultMessage).collect(Collectors.joining(". ")));
+        }
+    }
+}
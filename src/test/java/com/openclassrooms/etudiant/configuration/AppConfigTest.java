@@ -0,0 +1,53 @@
+package com.openclassrooms.etudiant.configuration;
+
+import com.openclassrooms.etudiant.dto.StudentDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AppConfigTest {
+    private final AppConfig appConfig = new AppConfig();
+
+    private Jackson2ObjectMapperBuilder builder() {
+        Jackson2ObjectMapperBuilder builder = new Jackson2ObjectMapperBuilder();
+        appConfig.jackson2ObjectMapperBuilderCustomizer().customize(builder);
+        return builder;
+    }
+
+    private void assertRoundTrip(AbstractJackson2HttpMessageConverter converter, MediaType mediaType) throws Exception {
+        //GIVEN
+        StudentDTO student = new StudentDTO();
+        student.setStudentNumber("0001");
+        student.setBirthDate(LocalDate.of(2000, 2, 1));
+
+        //WHEN
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        converter.write(student, mediaType, output);
+        Object read = converter.read(StudentDTO.class, new MockHttpInputMessage(output.getBodyAsBytes()));
+
+        //THEN
+        assertThat(output.getHeaders().getContentType()).isEqualTo(mediaType);
+        assertThat(converter.getObjectMapper().readTree(output.getBodyAsBytes()).get("birthDate").asText()).isEqualTo("01/02/2000");
+        assertThat(read).isEqualTo(student);
+    }
+
+    @DisplayName("Le CBOR garde le format de date du JSON")
+    @Test
+    public void test_cbor_keeps_date_format() throws Exception {
+        assertRoundTrip(appConfig.cborHttpMessageConverter(builder()), MediaType.APPLICATION_CBOR);
+    }
+
+    @DisplayName("Le Smile garde le format de date du JSON")
+    @Test
+    public void test_smile_keeps_date_format() throws Exception {
+        assertRoundTrip(appConfig.smileHttpMessageConverter(builder()), new MediaType("application", "x-jackson-smile"));
+    }
+}
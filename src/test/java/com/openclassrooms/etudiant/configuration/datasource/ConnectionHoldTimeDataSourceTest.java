@@ -0,0 +1,74 @@
+package com.openclassrooms.etudiant.configuration.datasource;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class ConnectionHoldTimeDataSourceTest {
+    private DataSource target;
+    private SimpleMeterRegistry meterRegistry;
+    private ConnectionHoldTimeDataSource dataSource;
+
+    @BeforeEach
+    public void init() throws SQLException {
+        target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        meterRegistry = new SimpleMeterRegistry();
+        dataSource = new ConnectionHoldTimeDataSource(target, meterRegistry);
+    }
+
+    @AfterEach
+    public void reset() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @DisplayName("Le temps de détention d'une connexion est mesuré une fois, pour l'endpoint de la requête qui l'a prise")
+    @Test
+    public void test_hold_time_is_recorded_by_endpoint() throws SQLException {
+        //GIVEN
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/student/0001");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/student/{studentNum}");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        //WHEN
+        Connection connection = dataSource.getConnection();
+        RequestContextHolder.resetRequestAttributes();
+        connection.close();
+        connection.close();
+
+        //THEN
+        Timer timer = meterRegistry.get(ConnectionHoldTimeDataSource.METER)
+                .tag("uri", "/api/student/{studentNum}").tag("method", "GET").timer();
+        assertThat(timer.count()).isEqualTo(1);
+        assertThat(meterRegistry.find(ConnectionHoldTimeDataSource.METER).tag("uri", ConnectionHoldTimeDataSource.NONE).timer()).isNull();
+    }
+
+    @DisplayName("Les connexions prises hors d'une requête ou avant qu'elle ne soit associée à un endpoint sont distinguées")
+    @Test
+    public void test_hold_time_outside_of_endpoint() throws SQLException {
+        //WHEN
+        dataSource.getConnection().close();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest("POST", "/api/login")));
+        dataSource.getConnection().close();
+
+        //THEN
+        assertThat(meterRegistry.get(ConnectionHoldTimeDataSource.METER)
+                .tag("uri", ConnectionHoldTimeDataSource.NONE).tag("method", ConnectionHoldTimeDataSource.NONE).timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(ConnectionHoldTimeDataSource.METER)
+                .tag("uri", ConnectionHoldTimeDataSource.UNKNOWN).tag("method", "POST").timer().count()).isEqualTo(1);
+    }
+}
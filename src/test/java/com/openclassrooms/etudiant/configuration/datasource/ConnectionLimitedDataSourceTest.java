@@ -0,0 +1,116 @@
+package com.openclassrooms.etudiant.configuration.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class ConnectionLimitedDataSourceTest {
+    private DataSource target;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void init() throws SQLException {
+        target = mock(DataSource.class);
+        meterRegistry = new SimpleMeterRegistry();
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+    }
+
+    @DisplayName("Une connexion fermée, même plusieurs fois, ne rend sa place qu'une fois")
+    @Test
+    public void test_close_releases_permit_once() throws SQLException {
+        //GIVEN
+        ConnectionLimitedDataSource dataSource = new ConnectionLimitedDataSource(target, "test", 1, 0, Duration.ofMillis(10), meterRegistry);
+        Connection first = dataSource.getConnection();
+
+        //WHEN
+        first.close();
+        first.close();
+        Connection second = dataSource.getConnection();
+
+        //THEN
+        Assertions.assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        second.close();
+        assertThat(meterRegistry.get("datasource.limiter.available").gauge().value()).isEqualTo(1);
+    }
+
+    @DisplayName("Au-delà du nombre de threads en attente, une demande de connexion échoue immédiatement")
+    @Test
+    public void test_rejects_beyond_max_waiting() throws Exception {
+        //GIVEN
+        ConnectionLimitedDataSource dataSource = new ConnectionLimitedDataSource(target, "test", 1, 0, Duration.ofMinutes(1), meterRegistry);
+        Connection held = dataSource.getConnection();
+
+        //WHEN
+        long start = System.nanoTime();
+        Assertions.assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+        //THEN
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(10));
+        assertThat(meterRegistry.get("datasource.limiter.rejected").counter().count()).isEqualTo(1);
+        held.close();
+    }
+
+    @DisplayName("Une connexion que le pool refuse rend sa place")
+    @Test
+    public void test_failed_connection_releases_permit() throws SQLException {
+        //GIVEN
+        when(target.getConnection()).thenThrow(new SQLException("down")).thenAnswer(invocation -> mock(Connection.class));
+        ConnectionLimitedDataSource dataSource = new ConnectionLimitedDataSource(target, "test", 1, 0, Duration.ofMillis(10), meterRegistry);
+
+        //THEN
+        Assertions.assertThrows(SQLException.class, dataSource::getConnection);
+        Assertions.assertDoesNotThrow(() -> dataSource.getConnection().close());
+    }
+
+    @DisplayName("Des milliers de threads virtuels ne tiennent jamais plus de connexions que la limite")
+    @Test
+    public void test_virtual_threads_never_exceed_limit() throws Exception {
+        //GIVEN
+        AtomicInteger open = new AtomicInteger();
+        AtomicInteger maxOpen = new AtomicInteger();
+        when(target.getConnection()).thenAnswer(invocation -> {
+            maxOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+            Connection connection = mock(Connection.class);
+            doAnswer(close -> open.decrementAndGet()).when(connection).close();
+            return connection;
+        });
+        ConnectionLimitedDataSource dataSource = new ConnectionLimitedDataSource(target, "test", 4, 10000, Duration.ofSeconds(30), meterRegistry);
+
+        //WHEN
+        List<Future<?>> tasks = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 2000; i++) {
+                tasks.add(executor.submit(() -> {
+                    try (Connection connection = dataSource.getConnection()) {
+                        Thread.sleep(1);
+                    }
+                    return null;
+                }));
+            }
+        }
+
+        //THEN
+        for (Future<?> task : tasks) {
+            task.get();
+        }
+        assertThat(maxOpen.get()).isEqualTo(4);
+        assertThat(open.get()).isZero();
+    }
+}
@@ -0,0 +1,198 @@
+package com.openclassrooms.etudiant.configuration.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class ReplicaRoutingDataSourceTest {
+    private HikariDataSource primary;
+    private Connection primaryConnection;
+    private AtomicBoolean primaryRequired;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void init() throws SQLException {
+        primary = mock(HikariDataSource.class);
+        primaryConnection = mock(Connection.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(primaryConnection.createStatement()).thenReturn(mock(Statement.class));
+        primaryRequired = new AtomicBoolean();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @DisplayName("Une transaction en lecture seule lit sur un réplica à jour, les autres transactions sur le primaire")
+    @Test
+    public void test_read_only_connection_goes_to_replica_in_sync() throws SQLException {
+        //GIVEN
+        Connection replicaConnection = replicaConnection(500_000L);
+        HikariDataSource replica = replica("replica-1", replicaConnection);
+        ReplicaRoutingDataSource dataSource = dataSource(List.of(replica));
+        dataSource.checkReplicas();
+        clearInvocations(primaryConnection, replicaConnection);
+
+        //WHEN
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setReadOnly(true);
+            connection.createStatement();
+        }
+
+        //THEN
+        verify(replicaConnection).createStatement();
+        verify(primaryConnection, never()).createStatement();
+        assertThat(meterRegistry.get("datasource.replica.lag").tag("replica", "replica-1").gauge().value()).isEqualTo(0.5);
+
+        //WHEN
+        try (Connection connection = dataSource.getConnection()) {
+            connection.createStatement();
+        }
+
+        //THEN
+        verify(primaryConnection).createStatement();
+        verify(replicaConnection, times(1)).createStatement();
+    }
+
+    @DisplayName("Les lectures retombent sur le primaire quand le réplica est trop en retard ou n'a pas de heartbeat")
+    @Test
+    public void test_read_only_connection_falls_back_to_primary_when_replica_lags() throws SQLException {
+        //GIVEN
+        Connection laggingConnection = replicaConnection(5_000_000L);
+        Connection unknownConnection = replicaConnection(null);
+        ReplicaRoutingDataSource dataSource = dataSource(List.of(replica("replica-1", laggingConnection),
+                replica("replica-2", unknownConnection)));
+        dataSource.checkReplicas();
+        clearInvocations(primaryConnection, laggingConnection, unknownConnection);
+
+        //WHEN
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setReadOnly(true);
+            connection.createStatement();
+        }
+
+        //THEN
+        verify(primaryConnection).createStatement();
+        verifyNoInteractions(laggingConnection, unknownConnection);
+        assertThat(meterRegistry.get("datasource.replica.reads").tag("target", "primary").counter().count()).isEqualTo(1);
+    }
+
+    @DisplayName("Les lectures qui doivent voir leurs propres écritures vont sur le primaire")
+    @Test
+    public void test_read_only_connection_goes_to_primary_when_required() throws SQLException {
+        //GIVEN
+        Connection replicaConnection = replicaConnection(0L);
+        ReplicaRoutingDataSource dataSource = dataSource(List.of(replica("replica-1", replicaConnection)));
+        dataSource.checkReplicas();
+        clearInvocations(primaryConnection, replicaConnection);
+        primaryRequired.set(true);
+
+        //WHEN
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setReadOnly(true);
+            connection.createStatement();
+        }
+
+        //THEN
+        verify(primaryConnection).createStatement();
+        verifyNoInteractions(replicaConnection);
+    }
+
+    @DisplayName("Un réplica injoignable est écarté et la lecture passe au réplica suivant")
+    @Test
+    public void test_read_only_connection_skips_unavailable_replica() throws SQLException {
+        //GIVEN
+        HikariDataSource unavailable = replica("replica-1", replicaConnection(0L));
+        Connection availableConnection = replicaConnection(0L);
+        ReplicaRoutingDataSource dataSource = dataSource(List.of(unavailable, replica("replica-2", availableConnection)));
+        dataSource.checkReplicas();
+        clearInvocations(primaryConnection, unavailable, availableConnection);
+        when(unavailable.getConnection()).thenThrow(new SQLTransientConnectionException("Connection is not available"));
+
+        //WHEN
+        for (int i = 0; i < 2; i++) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setReadOnly(true);
+                connection.createStatement();
+            }
+        }
+
+        //THEN
+        verify(availableConnection, times(2)).createStatement();
+        verify(unavailable, times(1)).getConnection();
+        verify(primaryConnection, never()).createStatement();
+    }
+
+    @DisplayName("Chaque pool a son propre limiteur : un primaire saturé ne bloque pas les lectures sur un réplica")
+    @Test
+    public void test_each_pool_has_its_own_limiter() throws SQLException {
+        //GIVEN
+        Connection replicaConnection = replicaConnection(0L);
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary,
+                List.of(replica("replica-1", replicaConnection)),
+                pool -> new ConnectionLimitedDataSource(pool, pool == primary ? "primary" : pool.getPoolName(), 1, 0,
+                        Duration.ofMillis(10), meterRegistry),
+                Duration.ofSeconds(2), Duration.ofHours(1), primaryRequired::get, meterRegistry);
+        dataSource.checkReplicas();
+        clearInvocations(primaryConnection, replicaConnection);
+
+        try (Connection writing = dataSource.getConnection()) {
+            writing.createStatement();
+
+            //WHEN
+            try (Connection reading = dataSource.getConnection()) {
+                reading.setReadOnly(true);
+                reading.createStatement();
+            }
+
+            //THEN
+            verify(replicaConnection).createStatement();
+            Assertions.assertThrows(SQLTransientConnectionException.class, () -> {
+                try (Connection other = dataSource.getConnection()) {
+                    other.createStatement();
+                }
+            });
+        }
+        assertThat(meterRegistry.get("datasource.limiter.available").tag("pool", "primary").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("datasource.limiter.available").tag("pool", "replica-1").gauge().value()).isEqualTo(1);
+    }
+
+    private ReplicaRoutingDataSource dataSource(List<HikariDataSource> replicas) {
+        return new ReplicaRoutingDataSource(primary, replicas, pool -> pool, Duration.ofSeconds(2), Duration.ofHours(1),
+                primaryRequired::get, meterRegistry);
+    }
+
+    private HikariDataSource replica(String name, Connection connection) throws SQLException {
+        HikariDataSource replica = mock(HikariDataSource.class);
+        when(replica.getPoolName()).thenReturn(name);
+        when(replica.getConnection()).thenReturn(connection);
+        return replica;
+    }
+
+    // A connection whose heartbeat is lagMicros old, or which has no heartbeat when null.
+    private Connection replicaConnection(Long lagMicros) throws SQLException {
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(lagMicros != null);
+        if (lagMicros != null) {
+            when(resultSet.getLong(1)).thenReturn(lagMicros);
+        }
+        return connection;
+    }
+}
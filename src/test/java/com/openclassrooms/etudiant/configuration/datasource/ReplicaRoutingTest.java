@@ -0,0 +1,160 @@
+package com.openclassrooms.etudiant.configuration.datasource;
+
+import com.openclassrooms.etudiant.entities.Student;
+import com.openclassrooms.etudiant.service.StudentService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against two independent MySQL servers, the second one standing for a replica: it gets the schema of the
+ * primary but no replication, so the tests write its heartbeat and its rows themselves. A student that only
+ * exists on the replica shows where a read went.
+ */
+@SpringBootTest
+@Testcontainers
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ReplicaRoutingTest {
+    private static final String REPLICA_ONLY = "R0000001";
+
+    @Container
+    static MySQLContainer primaryContainer = new MySQLContainer("mysql:8.0.44");
+    @Container
+    static MySQLContainer replicaContainer = new MySQLContainer("mysql:8.0.44");
+
+    @Autowired
+    private StudentService studentService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    private JdbcTemplate replicaJdbcTemplate;
+
+    @DynamicPropertySource
+    static void configureTestProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> primaryContainer.getJdbcUrl());
+        registry.add("spring.datasource.username", () -> primaryContainer.getUsername());
+        registry.add("spring.datasource.password", () -> primaryContainer.getPassword());
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create");
+        registry.add("spring.jpa.open-in-view", () -> "false");
+        registry.add("datasource.replicas.urls", () -> replicaContainer.getJdbcUrl());
+        registry.add("datasource.replicas.lag-check-interval", () -> "100ms");
+    }
+
+    @BeforeAll
+    public void copySchema() {
+        replicaJdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(replicaContainer.getJdbcUrl(),
+                replicaContainer.getUsername(), replicaContainer.getPassword()));
+        replicaJdbcTemplate.execute("set foreign_key_checks = 0");
+        for (String table : jdbcTemplate.queryForList("show tables", String.class)) {
+            replicaJdbcTemplate.execute(jdbcTemplate.queryForMap("show create table " + table).get("Create Table").toString());
+        }
+        replicaJdbcTemplate.update("insert into student (student_num, first_name, last_name, birth_date, email, sub_start, sub_end, version) "
+                + "values (?, 'Replica', 'Only', '2000-01-01', 'replica@mail.fr', '2026-09-01', '2027-06-30', 0)", REPLICA_ONLY);
+    }
+
+    @BeforeEach
+    public void init() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @DisplayName("Les lectures seules vont sur le réplica à jour, les autres lectures et les écritures sur le primaire")
+    @Test
+    public void test_read_only_transactions_read_from_replica() {
+        //GIVEN
+        beatOnReplica(0);
+
+        //WHEN
+        awaitReadsFrom(true);
+
+        //THEN
+        Assertions.assertThrows(IllegalArgumentException.class, () -> studentService.getStudentByStudentNum(REPLICA_ONLY));
+        studentService.createStudent(student("P0000001"));
+        assertThat(jdbcTemplate.queryForObject("select count(*) from student where student_num = 'P0000001'", Integer.class)).isEqualTo(1);
+        assertThat(replicaJdbcTemplate.queryForObject("select count(*) from student where student_num = 'P0000001'", Integer.class)).isZero();
+    }
+
+    @DisplayName("Les lectures seules retombent sur le primaire quand le réplica est trop en retard")
+    @Test
+    public void test_read_only_transactions_fall_back_to_primary_when_replica_lags() {
+        //GIVEN
+        beatOnReplica(10);
+
+        //THEN
+        awaitReadsFrom(false);
+    }
+
+    @DisplayName("L'utilisateur qui vient de modifier un étudiant le relit sur le primaire")
+    @Test
+    public void test_reads_after_write_go_to_primary() {
+        //GIVEN
+        beatOnReplica(0);
+        awaitReadsFrom(true);
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                "writer", null, AuthorityUtils.NO_AUTHORITIES));
+
+        //WHEN
+        studentService.createStudent(student("P0000002"));
+
+        //THEN
+        assertThat(studentNumbers()).contains("P0000002").doesNotContain(REPLICA_ONLY);
+        SecurityContextHolder.clearContext();
+        assertThat(studentNumbers()).contains(REPLICA_ONLY).doesNotContain("P0000002");
+    }
+
+    private void beatOnReplica(int secondsAgo) {
+        replicaJdbcTemplate.update("insert into replica_heartbeat (id, beat) values (1, utc_timestamp(6) - interval ? second) "
+                + "on duplicate key update beat = values(beat)", secondsAgo);
+    }
+
+    private void awaitReadsFrom(boolean replica) {
+        await(() -> studentNumbers().contains(REPLICA_ONLY) == replica);
+    }
+
+    private List<String> studentNumbers() {
+        return studentService.getStudentsList().stream().map(Student::getStudentNumber).toList();
+    }
+
+    private static void await(Supplier<Boolean> condition) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.get()) {
+            assertThat(System.currentTimeMillis()).as("Waited too long for the reads to move").isLessThan(deadline);
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static Student student(String studentNumber) {
+        Student student = new Student();
+        student.setStudentNumber(studentNumber);
+        student.setFirstName("Primary");
+        student.setLastName("Student");
+        student.setBirthDate(LocalDate.of(2000, 1, 1));
+        student.setEmail(studentNumber.toLowerCase() + "@mail.fr");
+        student.setSubscribeStart(LocalDate.of(2026, 9, 1));
+        student.setSubscribeEnd(LocalDate.of(2027, 6, 30));
+        return student;
+    }
+}
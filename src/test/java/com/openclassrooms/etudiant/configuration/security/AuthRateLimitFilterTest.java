@@ -0,0 +1,155 @@
+package com.openclassrooms.etudiant.configuration.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class AuthRateLimitFilterTest {
+    private static final String LOGIN = "login";
+
+    private final AtomicLong now = new AtomicLong();
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void init() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private AuthRateLimitFilter newFilter(int clientCapacity, int loginCapacity, int maxConcurrentHashing) {
+        return new AuthRateLimitFilter(
+                new TokenBucketRateLimiter(clientCapacity, Duration.ofMinutes(1), 100, now::get),
+                new TokenBucketRateLimiter(loginCapacity, Duration.ofMinutes(1), 100, now::get),
+                new TokenBucketRateLimiter(2, Duration.ofMinutes(1), 100, now::get),
+                maxConcurrentHashing,
+                meterRegistry);
+    }
+
+    private MockHttpServletResponse login(AuthRateLimitFilter filter, String remoteAddr, FilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/login");
+        request.setRemoteAddr(remoteAddr);
+        request.setParameter("login", LOGIN);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    @DisplayName("Le seau se vide puis se remplit avec le temps")
+    @Test
+    public void test_token_bucket_refills_over_time() {
+        //GIVEN
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(2, Duration.ofSeconds(2), 100, now::get);
+
+        //THEN
+        assertThat(limiter.tryAcquire(LOGIN)).isZero();
+        assertThat(limiter.tryAcquire(LOGIN)).isZero();
+        assertThat(limiter.tryAcquire(LOGIN)).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(limiter.tryAcquire(LOGIN)).isZero();
+        assertThat(limiter.tryAcquire("other")).isZero();
+        assertThat(limiter.size()).isEqualTo(2);
+    }
+
+    @DisplayName("Trop de connexions pour un même login renvoient 429 avec Retry-After")
+    @Test
+    public void test_login_over_limit_is_rejected() throws Exception {
+        //GIVEN
+        AuthRateLimitFilter filter = newFilter(100, 2, 10);
+
+        //WHEN
+        login(filter, "10.0.0.1", new MockFilterChain());
+        login(filter, "10.0.0.2", new MockFilterChain());
+        FilterChain chain = mock(FilterChain.class);
+        MockHttpServletResponse response = login(filter, "10.0.0.3", chain);
+
+        //THEN
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(response.getHeader("Retry-After")).isEqualTo("30");
+        verify(chain, never()).doFilter(any(), any());
+        assertThat(meterRegistry.get("auth.rate-limit.rejections").tag("reason", "login").counter().count()).isEqualTo(1);
+    }
+
+    @DisplayName("Trop de requêtes d'une même adresse renvoient 429")
+    @Test
+    public void test_client_over_limit_is_rejected() throws Exception {
+        //GIVEN
+        AuthRateLimitFilter filter = newFilter(1, 100, 10);
+        login(filter, "10.0.0.1", new MockFilterChain());
+
+        //WHEN
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/register");
+        request.setRemoteAddr("10.0.0.1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+
+        //THEN
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(meterRegistry.get("auth.rate-limit.rejections").tag("reason", "client").counter().count()).isEqualTo(1);
+    }
+
+    @DisplayName("Sans permis de hachage disponible la requête est refusée")
+    @Test
+    public void test_no_hashing_permit_is_rejected() throws Exception {
+        //GIVEN
+        AuthRateLimitFilter filter = newFilter(100, 100, 0);
+
+        //WHEN
+        MockHttpServletResponse response = login(filter, "10.0.0.1", new MockFilterChain());
+
+        //THEN
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(response.getHeader("Retry-After")).isEqualTo("1");
+    }
+
+    @DisplayName("Les autres routes ne sont pas limitées")
+    @Test
+    public void test_other_routes_are_not_limited() throws Exception {
+        //GIVEN
+        AuthRateLimitFilter filter = newFilter(1, 1, 0);
+        FilterChain chain = mock(FilterChain.class);
+
+        //WHEN
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/student");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+
+        //THEN
+        assertThat(response.getStatus()).isEqualTo(200);
+        verify(chain, times(1)).doFilter(any(), any());
+    }
+
+    @DisplayName("Les introspections par lot sont limitées par adresse, sans permis de hachage")
+    @Test
+    public void test_introspection_over_limit_is_rejected() throws Exception {
+        //GIVEN
+        AuthRateLimitFilter filter = newFilter(1, 1, 0);
+        FilterChain chain = mock(FilterChain.class);
+
+        //WHEN
+        MockHttpServletResponse response = null;
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/introspect");
+            request.setRemoteAddr("10.0.0.1");
+            response = new MockHttpServletResponse();
+            filter.doFilter(request, response, chain);
+        }
+
+        //THEN
+        assertThat(response.getStatus()).isEqualTo(429);
+        verify(chain, times(2)).doFilter(any(), any());
+        assertThat(meterRegistry.get("auth.rate-limit.rejections").tag("reason", "introspection").counter().count()).isEqualTo(1);
+    }
+}
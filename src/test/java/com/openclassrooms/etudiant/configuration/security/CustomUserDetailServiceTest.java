@@ -0,0 +1,117 @@
+package com.openclassrooms.etudiant.configuration.security;
+
+import com.openclassrooms.etudiant.entities.User;
+import com.openclassrooms.etudiant.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+public class CustomUserDetailServiceTest {
+    private static final String LOGIN = "login";
+
+    @Mock
+    private UserRepository userRepository;
+
+    private CustomUserDetailService service;
+    private User user;
+
+    @BeforeEach
+    public void init() {
+        service = new CustomUserDetailService(userRepository, new SimpleMeterRegistry(), 100, Duration.ofMinutes(5));
+        user = new User();
+        user.setId(1L);
+        user.setLogin(LOGIN);
+    }
+
+    @DisplayName("Un utilisateur chargé deux fois n'est lu qu'une fois en base")
+    @Test
+    public void test_load_user_twice_reads_database_once() {
+        //GIVEN
+        when(userRepository.findByLogin(LOGIN)).thenReturn(Optional.of(user));
+
+        //WHEN
+        service.loadUserByUsername(LOGIN);
+        UserDetails result = service.loadUserByUsername(LOGIN);
+
+        //THEN
+        assertThat(result).isSameAs(user);
+        verify(userRepository, times(1)).findByLogin(LOGIN);
+    }
+
+    @DisplayName("Un utilisateur invalidé est relu en base")
+    @Test
+    public void test_evicted_user_is_reloaded() {
+        //GIVEN
+        when(userRepository.findByLogin(LOGIN)).thenReturn(Optional.of(user));
+        service.loadUserByUsername(LOGIN);
+
+        //WHEN
+        service.evict(LOGIN);
+        service.loadUserByUsername(LOGIN);
+
+        //THEN
+        verify(userRepository, times(2)).findByLogin(LOGIN);
+    }
+
+    @DisplayName("Un utilisateur inconnu renvoie une erreur")
+    @Test
+    public void test_load_unknown_user_throws_UsernameNotFoundException() {
+        //GIVEN
+        when(userRepository.findByLogin(any())).thenReturn(Optional.empty());
+
+        //THEN
+        Assertions.assertThrows(UsernameNotFoundException.class, () -> service.loadUserByUsername(LOGIN));
+    }
+
+    @DisplayName("Les claims avec un identifiant construisent l'utilisateur sans la base")
+    @Test
+    public void test_load_user_from_claims_without_database() {
+        //GIVEN
+        Claims claims = Jwts.claims().setSubject(LOGIN);
+        claims.put(JwtUtils.CLAIM_USER_ID, 1);
+        claims.put(JwtUtils.CLAIM_AUTHORITIES, List.of("ROLE_AGENT"));
+
+        //WHEN
+        UserDetails result = service.loadUserFromClaims(claims);
+
+        //THEN
+        assertThat(result.getUsername()).isEqualTo(LOGIN);
+        assertThat(((User) result).getId()).isEqualTo(1L);
+        assertThat(service.getAuthoritiesFromClaims(claims, result))
+                .extracting("authority").containsExactly("ROLE_AGENT");
+        verifyNoInteractions(userRepository);
+    }
+
+    @DisplayName("Les claims d'un ancien token sans identifiant passent par la base")
+    @Test
+    public void test_load_user_from_legacy_claims_uses_database() {
+        //GIVEN
+        Claims claims = Jwts.claims().setSubject(LOGIN);
+        when(userRepository.findByLogin(LOGIN)).thenReturn(Optional.of(user));
+
+        //WHEN
+        UserDetails result = service.loadUserFromClaims(claims);
+
+        //THEN
+        assertThat(result).isSameAs(user);
+        verify(userRepository, times(1)).findByLogin(LOGIN);
+    }
+}
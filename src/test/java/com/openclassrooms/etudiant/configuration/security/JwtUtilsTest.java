@@ -0,0 +1,104 @@
+package com.openclassrooms.etudiant.configuration.security;
+
+import com.openclassrooms.etudiant.entities.User;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JwtUtilsTest {
+    private static final String SECRET = "Vw0ThEB/ia7oHF6BPE9ARyLGIstx/P07XuUmQKO7I1o=";
+    private static final String OTHER_SECRET = "c2VjcmV0LWRpZmZlcmVudC1kdS1wcmVtaWVyLXNlY3JldA==";
+    private static final String LOGIN = "login";
+    private static final Long USER_ID = 42L;
+
+    private MeterRegistry meterRegistry;
+    private JwtUtils jwtUtils;
+    private User user;
+
+    private JwtUtils newJwtUtils(String secret, int expirationMs) {
+        JwtUtils utils = new JwtUtils();
+        ReflectionTestUtils.setField(utils, "JWT_SECRET", secret);
+        ReflectionTestUtils.setField(utils, "JWT_EXPIRATION_IN_MS", expirationMs);
+        ReflectionTestUtils.setField(utils, "JWT_CACHE_MAX_SIZE", 100L);
+        ReflectionTestUtils.setField(utils, "meterRegistry", meterRegistry);
+        utils.init();
+        return utils;
+    }
+
+    @BeforeEach
+    public void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        jwtUtils = newJwtUtils(SECRET, 3600000);
+        user = new User();
+        user.setId(USER_ID);
+        user.setLogin(LOGIN);
+    }
+
+    @DisplayName("Un token généré est vérifié et renvoie son sujet")
+    @Test
+    public void test_parse_claims_of_generated_token() {
+        //GIVEN
+        String token = jwtUtils.generateToken(user);
+
+        //WHEN
+        Claims claims = jwtUtils.parseClaims(token);
+
+        //THEN
+        assertThat(claims).isNotNull();
+        assertThat(claims.getSubject()).isEqualTo(LOGIN);
+        assertThat(jwtUtils.validateJwt(token)).isTrue();
+        assertThat(jwtUtils.getUsernameFromToken(token)).isEqualTo(LOGIN);
+        assertThat(claims.get(JwtUtils.CLAIM_USER_ID, Long.class)).isEqualTo(USER_ID);
+        assertThat(claims.get(JwtUtils.CLAIM_AUTHORITIES, List.class)).containsExactly("ROLE_USER");
+    }
+
+    @DisplayName("Un token vérifié une seconde fois est servi par le cache")
+    @Test
+    public void test_parse_claims_twice_hits_cache() {
+        //GIVEN
+        String token = jwtUtils.generateToken(user);
+
+        //WHEN
+        Claims first = jwtUtils.parseClaims(token);
+        Claims second = jwtUtils.parseClaims(token);
+
+        //THEN
+        assertThat(second).isSameAs(first);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "jwt.verified").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "jwt.verified").tag("result", "miss")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @DisplayName("Un token signé avec une autre clé est refusé")
+    @Test
+    public void test_parse_claims_with_other_key_returns_null() {
+        //GIVEN
+        String token = newJwtUtils(OTHER_SECRET, 3600000).generateToken(user);
+
+        //THEN
+        assertThat(jwtUtils.parseClaims(token)).isNull();
+        assertThat(jwtUtils.validateJwt(token)).isFalse();
+    }
+
+    @DisplayName("Un token expiré ou mal formé est refusé")
+    @Test
+    public void test_parse_claims_of_expired_or_malformed_token_returns_null() {
+        //GIVEN
+        String expired = newJwtUtils(SECRET, -1000).generateToken(user);
+
+        //THEN
+        assertThat(jwtUtils.parseClaims(expired)).isNull();
+        assertThat(jwtUtils.parseClaims("not.a.token")).isNull();
+        assertThat(jwtUtils.parseClaims("")).isNull();
+        assertThat(jwtUtils.parseClaims(null)).isNull();
+    }
+}
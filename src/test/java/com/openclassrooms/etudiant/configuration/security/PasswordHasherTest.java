@@ -0,0 +1,81 @@
+package com.openclassrooms.etudiant.configuration.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PasswordHasherTest {
+    private static final String PASSWORD = "password";
+
+    private PasswordHasher hasher;
+
+    @AfterEach
+    public void afterEach() {
+        if (hasher != null) {
+            hasher.shutdown();
+        }
+    }
+
+    @DisplayName("Un mot de passe haché est reconnu")
+    @Test
+    public void test_encode_then_matches() {
+        //GIVEN
+        hasher = new PasswordHasher(new BCryptPasswordEncoder(4), new SimpleMeterRegistry(), 1, 4, Duration.ofSeconds(5));
+
+        //WHEN
+        String hash = hasher.encode(PASSWORD);
+
+        //THEN
+        assertThat(hasher.matches(PASSWORD, hash)).isTrue();
+        assertThat(hasher.matches("other", hash)).isFalse();
+    }
+
+    @DisplayName("Un hash d'un coût inférieur doit être mis à jour")
+    @Test
+    public void test_upgrade_encoding_of_lower_strength() {
+        //GIVEN
+        hasher = new PasswordHasher(new BCryptPasswordEncoder(5), new SimpleMeterRegistry(), 1, 4, Duration.ofSeconds(5));
+        String oldHash = new BCryptPasswordEncoder(4).encode(PASSWORD);
+
+        //THEN
+        assertThat(hasher.upgradeEncoding(oldHash)).isTrue();
+        assertThat(hasher.upgradeEncoding(hasher.encode(PASSWORD))).isFalse();
+    }
+
+    @DisplayName("Un hachage qui dépasse le délai est rejeté")
+    @Test
+    public void test_matches_timeout_throws_RejectedExecutionException() throws Exception {
+        //GIVEN
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder slowEncoder = mock(PasswordEncoder.class);
+        when(slowEncoder.matches(any(), any())).thenAnswer(invocation -> {
+            release.await();
+            return true;
+        });
+        hasher = new PasswordHasher(slowEncoder, new SimpleMeterRegistry(), 1, 1, Duration.ofMillis(50));
+
+        //THEN
+        Assertions.assertThrows(RejectedExecutionException.class, () -> hasher.matches(PASSWORD, PASSWORD));
+        release.countDown();
+    }
+
+    @DisplayName("La calibration reste dans les bornes")
+    @Test
+    public void test_calibration_stays_within_bounds() {
+        assertThat(BCryptStrengthCalibrator.calibrate(Duration.ZERO, 4, 6)).isEqualTo(4);
+        assertThat(BCryptStrengthCalibrator.calibrate(Duration.ofHours(1), 4, 6)).isEqualTo(6);
+    }
+}
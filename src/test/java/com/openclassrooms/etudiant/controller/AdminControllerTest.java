@@ -0,0 +1,105 @@
+package com.openclassrooms.etudiant.controller;
+
+import com.openclassrooms.etudiant.entities.User;
+import com.openclassrooms.etudiant.repository.UserRepository;
+import com.openclassrooms.etudiant.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@Testcontainers
+public class AdminControllerTest {
+
+    @Container
+    static MySQLContainer mySQLContainer = new MySQLContainer("mysql:8.0.44");
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private MockMvc mockMvc;
+
+    private static final String URL_CACHE = "/api/admin/cache/students";
+    private static final String URL_CACHE_STUDENT = "/api/admin/cache/students/000001";
+    private static final String FIRST_NAME = "John";
+    private static final String LAST_NAME = "Doe";
+    private static final String LOGIN = "login";
+    private static final String PASSWORD = "password";
+
+    @DynamicPropertySource
+    static void configureTestProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> mySQLContainer.getJdbcUrl());
+        registry.add("spring.datasource.username", () -> mySQLContainer.getUsername());
+        registry.add("spring.datasource.password", () -> mySQLContainer.getPassword());
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create");
+    }
+
+    @BeforeEach
+    public void beforeEach() {
+        User user = new User();
+        user.setFirstName(FIRST_NAME);
+        user.setLastName(LAST_NAME);
+        user.setLogin(LOGIN);
+        user.setPassword(PASSWORD);
+        userService.register(user);
+    }
+
+    @AfterEach
+    public void afterEach() {
+        userRepository.deleteAll();
+    }
+
+    @DisplayName("Un utilisateur non administrateur ne peut pas consulter ni vider le cache")
+    @Test
+    public void cacheIsForbiddenToUsers() throws Exception {
+        //GIVEN
+        String token = userService.login(LOGIN, PASSWORD);
+
+        //WHEN //THEN
+        mockMvc.perform(MockMvcRequestBuilders.get(URL_CACHE)
+                        .header("Authorization", "Bearer " + token)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isForbidden());
+        mockMvc.perform(MockMvcRequestBuilders.delete(URL_CACHE)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(MockMvcResultMatchers.status().isForbidden());
+        mockMvc.perform(MockMvcRequestBuilders.delete(URL_CACHE_STUDENT)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(MockMvcResultMatchers.status().isForbidden());
+    }
+
+    @DisplayName("Un administrateur peut consulter et vider le cache")
+    @Test
+    public void cacheIsAllowedToAdmins() throws Exception {
+        //GIVEN
+        User admin = userRepository.findByLogin(LOGIN).orElseThrow();
+        admin.setRole(User.Role.ADMIN);
+        userRepository.save(admin);
+        String token = userService.login(LOGIN, PASSWORD);
+
+        //WHEN //THEN
+        mockMvc.perform(MockMvcRequestBuilders.get(URL_CACHE)
+                        .header("Authorization", "Bearer " + token)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.delete(URL_CACHE)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(MockMvcResultMatchers.status().isNoContent());
+    }
+}
@@ -6,12 +6,14 @@ import com.openclassrooms.etudiant.entities.Student;
 import com.openclassrooms.etudiant.entities.User;
 import com.openclassrooms.etudiant.repository.StudentRepository;
 import com.openclassrooms.etudiant.repository.UserRepository;
+import com.openclassrooms.etudiant.service.StudentIfMatch;
 import com.openclassrooms.etudiant.service.StudentService;
 import com.openclassrooms.etudiant.service.UserService;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
@@ -234,6 +236,7 @@ public class StudentControllerTest {
                             .content(objectMapper.writeValueAsString(studentDTO))
                             .contentType(MediaType.APPLICATION_JSON)
                             .header("Authorization", "Bearer " + token)
+                            .header(HttpHeaders.IF_MATCH, StudentIfMatch.etag(student.getId(), student.getVersion()))
                             .accept(MediaType.APPLICATION_JSON))
                     .andExpect(MockMvcResultMatchers.status().is2xxSuccessful());
         }
@@ -260,9 +263,40 @@ public class StudentControllerTest {
                             .content(objectMapper.writeValueAsString(studentDTO))
                             .contentType(MediaType.APPLICATION_JSON)
                             .header("Authorization", "Bearer " + token)
+                            .header(HttpHeaders.IF_MATCH, StudentIfMatch.etag(student.getId(), student.getVersion()))
                             .accept(MediaType.APPLICATION_JSON))
                     .andExpect(MockMvcResultMatchers.status().is2xxSuccessful());
         }
+
+        @DisplayName("Qui existe sans If-Match ou avec une version dépassée est refusé")
+        @Test
+        public void updateStudentWithoutCurrentVersion() throws Exception {
+            // GIVEN
+            Student student = new Student();
+            student.setStudentNumber(STUDENT_NUM);
+            student.setFirstName(STUDENT_FIRST_NAME);
+            student.setLastName(STUDENT_LAST_NAME);
+            student.setBirthDate(BIRTHDATE);
+            service.createStudent(student);
+            StudentDTO studentDTO = new StudentDTO();
+            studentDTO.setEmail(EMAIL);
+
+            // WHEN
+            mockMvc.perform(MockMvcRequestBuilders.put(URL_STUDENT+STUDENT_NUM)
+                            .content(objectMapper.writeValueAsString(studentDTO))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .header("Authorization", "Bearer " + token)
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(MockMvcResultMatchers.status().isPreconditionRequired());
+            mockMvc.perform(MockMvcRequestBuilders.put(URL_STUDENT+STUDENT_NUM)
+                            .content(objectMapper.writeValueAsString(studentDTO))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .header("Authorization", "Bearer " + token)
+                            .header(HttpHeaders.IF_MATCH, StudentIfMatch.etag(student.getId(), student.getVersion() + 1))
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(MockMvcResultMatchers.status().isPreconditionFailed())
+                    .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, StudentIfMatch.etag(student.getId(), student.getVersion())));
+        }
     }
 
     @Nested
@@ -274,6 +308,7 @@ public class StudentControllerTest {
             // WHEN
             mockMvc.perform(MockMvcRequestBuilders.delete(URL_STUDENT+STUDENT_NUM)
                             .header("Authorization", "Bearer " + token)
+                            .header(HttpHeaders.IF_MATCH, "*")
                             .accept(MediaType.APPLICATION_JSON))
                     .andExpect(MockMvcResultMatchers.status().isBadRequest());
         }
@@ -292,10 +327,49 @@ public class StudentControllerTest {
             // WHEN
             mockMvc.perform(MockMvcRequestBuilders.delete(URL_STUDENT+STUDENT_NUM)
                             .header("Authorization", "Bearer " + token)
+                            .header(HttpHeaders.IF_MATCH, StudentIfMatch.etag(student.getId(), student.getVersion()))
                             .accept(MediaType.APPLICATION_JSON))
                     .andExpect(MockMvcResultMatchers.status().is2xxSuccessful());
 
         }
+
+        @DisplayName("L'ETag d'un étudiant supprimé ne correspond pas à l'étudiant recréé avec le même numéro")
+        @Test
+        public void deleteRecreatedStudentWithFormerEtag() throws Exception {
+            // GIVEN
+            Student student = new Student();
+            student.setStudentNumber(STUDENT_NUM);
+            student.setFirstName(STUDENT_FIRST_NAME);
+            student.setLastName(STUDENT_LAST_NAME);
+            student.setBirthDate(BIRTHDATE);
+            service.createStudent(student);
+            String formerEtag = StudentIfMatch.etag(student.getId(), student.getVersion());
+            mockMvc.perform(MockMvcRequestBuilders.delete(URL_STUDENT+STUDENT_NUM)
+                            .header("Authorization", "Bearer " + token)
+                            .header(HttpHeaders.IF_MATCH, formerEtag)
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(MockMvcResultMatchers.status().is2xxSuccessful());
+            Student recreated = new Student();
+            recreated.setStudentNumber(STUDENT_NUM);
+            recreated.setFirstName(STUDENT_FIRST_NAME);
+            recreated.setLastName(STUDENT_LAST_NAME);
+            recreated.setBirthDate(BIRTHDATE);
+            service.createStudent(recreated);
+
+            // WHEN
+            mockMvc.perform(MockMvcRequestBuilders.get(URL_STUDENT+STUDENT_NUM)
+                            .header("Authorization", "Bearer " + token)
+                            .header(HttpHeaders.IF_NONE_MATCH, formerEtag)
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(MockMvcResultMatchers.status().isOk());
+            mockMvc.perform(MockMvcRequestBuilders.delete(URL_STUDENT+STUDENT_NUM)
+                            .header("Authorization", "Bearer " + token)
+                            .header(HttpHeaders.IF_MATCH, formerEtag)
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(MockMvcResultMatchers.status().isPreconditionFailed())
+                    .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG,
+                            StudentIfMatch.etag(recreated.getId(), recreated.getVersion())));
+        }
     }
 
 
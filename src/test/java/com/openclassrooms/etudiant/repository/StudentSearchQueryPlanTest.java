@@ -0,0 +1,138 @@
+package com.openclassrooms.etudiant.repository;
+
+import com.openclassrooms.etudiant.dto.StudentSearchDTO;
+import com.openclassrooms.etudiant.service.StudentService;
+import com.openclassrooms.etudiant.service.StudentSort;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs every search criterion against MySQL and checks with EXPLAIN that the generated query reads the
+ * student table through one of its indexes. Criteria values are inlined in the SQL so that it can be
+ * explained as is.
+ */
+@SpringBootTest
+@Testcontainers
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class StudentSearchQueryPlanTest {
+    private static final int ROWS = 10000;
+    private static final LocalDate ORIGIN = LocalDate.of(2000, 1, 1);
+
+    @Container
+    static MySQLContainer mySQLContainer = new MySQLContainer("mysql:8.0.44");
+
+    @Autowired
+    private StudentService studentService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public static class RecordingStatementInspector implements StatementInspector {
+        static final Queue<String> STATEMENTS = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+
+    @DynamicPropertySource
+    static void configureTestProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> mySQLContainer.getJdbcUrl());
+        registry.add("spring.datasource.username", () -> mySQLContainer.getUsername());
+        registry.add("spring.datasource.password", () -> mySQLContainer.getPassword());
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create");
+        registry.add("spring.jpa.properties.hibernate.criteria.value_handling_mode", () -> "inline");
+        registry.add("spring.jpa.properties.hibernate.session_factory.statement_inspector",
+                RecordingStatementInspector.class::getName);
+    }
+
+    @BeforeAll
+    public void insertStudents() {
+        jdbcTemplate.batchUpdate("insert into student (student_num, first_name, last_name, birth_date, email, phone_num, sub_start, sub_end) "
+                        + "values (?, ?, ?, ?, ?, ?, ?, ?)",
+                IntStream.range(0, ROWS).mapToObj(i -> new Object[]{
+                        String.format("%08d", (i * 7919) % ROWS),
+                        "First" + i,
+                        "Last" + i,
+                        Date.valueOf(ORIGIN.minusYears(20).plusDays(i)),
+                        "student" + i + "@mail.fr",
+                        "06" + String.format("%08d", i),
+                        Date.valueOf(ORIGIN.plusDays(i)),
+                        Date.valueOf(ORIGIN.plusDays(i + 30))
+                }).toList());
+        jdbcTemplate.execute("analyze table student");
+    }
+
+    private static Arguments criterion(String name, Consumer<StudentSearchDTO> criterion) {
+        return Arguments.of(name, criterion);
+    }
+
+    static Stream<Arguments> criteria() {
+        return Stream.of(
+                criterion("lastName", search -> search.setLastName("Last123")),
+                criterion("firstName", search -> search.setFirstName("First456")),
+                criterion("lastName and firstName", search -> {
+                    search.setLastName("Last78");
+                    search.setFirstName("First78");
+                }),
+                criterion("email", search -> search.setEmail("student42@mail.fr")),
+                criterion("phoneNumber", search -> search.setPhoneNumber("0600000042")),
+                criterion("birthDate range", search -> {
+                    search.setBornAfter(ORIGIN.minusYears(20).plusDays(5000));
+                    search.setBornBefore(ORIGIN.minusYears(20).plusDays(5010));
+                }),
+                criterion("activeOn", search -> search.setActiveOn(ORIGIN.plusDays(9990))));
+    }
+
+    @DisplayName("Chaque critère de recherche utilise un index")
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("criteria")
+    public void test_search_criterion_uses_an_index(String name, Consumer<StudentSearchDTO> criterion) {
+        //GIVEN
+        StudentSearchDTO search = new StudentSearchDTO();
+        criterion.accept(search);
+        RecordingStatementInspector.STATEMENTS.clear();
+
+        //WHEN
+        assertThat(studentService.searchStudents(search, StudentSort.STUDENT_NUMBER, Sort.Direction.ASC, 50, null)
+                .getContent()).isNotEmpty();
+        String sql = RecordingStatementInspector.STATEMENTS.stream()
+                .filter(statement -> statement.startsWith("select") && statement.contains("from student"))
+                .reduce((first, second) -> second)
+                .orElseThrow();
+        // Only the page limit is still bound.
+        List<Map<String, Object>> plan = jdbcTemplate.queryForList("explain " + sql.replace("?", "51"));
+
+        //THEN
+        assertThat(plan).hasSize(1);
+        assertThat(plan.get(0).get("type")).as(sql).isIn("ref", "range", "eq_ref", "const");
+        assertThat((String) plan.get(0).get("key")).as(sql).startsWith("idx_student_");
+    }
+}
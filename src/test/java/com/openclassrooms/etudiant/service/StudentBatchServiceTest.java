@@ -0,0 +1,119 @@
+package com.openclassrooms.etudiant.service;
+
+import com.openclassrooms.etudiant.dto.StudentBatchItemDTO;
+import com.openclassrooms.etudiant.dto.StudentBatchResultDTO;
+import com.openclassrooms.etudiant.dto.StudentDTO;
+import com.openclassrooms.etudiant.entities.Student;
+import com.openclassrooms.etudiant.mapper.StudentDtoMapperImpl;
+import com.openclassrooms.etudiant.repository.StudentRepository;
+import com.openclassrooms.etudiant.validator.StudentValidator;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+public class StudentBatchServiceTest {
+    @Mock
+    private StudentRepository studentRepository;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    private StudentBatchService service;
+
+    @BeforeEach
+    public void init() {
+        service = new StudentBatchService(studentRepository, new StudentDtoMapperImpl(), new StudentValidator(),
+                Validation.buildDefaultValidatorFactory().getValidator(), jdbcTemplate, eventPublisher, 3, 1000);
+    }
+
+    private StudentDTO student(String studentNumber, String firstName) {
+        StudentDTO student = new StudentDTO();
+        student.setStudentNumber(studentNumber);
+        student.setFirstName(firstName);
+        student.setLastName("Smith");
+        student.setBirthDate(LocalDate.of(2000, 2, 1));
+        return student;
+    }
+
+    @SuppressWarnings("unchecked")
+    @DisplayName("Les étudiants valides sont insérés en un lot et les autres rejetés avec leur motif")
+    @Test
+    public void test_create_students_reports_each_item() {
+        //GIVEN
+        when(studentRepository.findExistingStudentNumbers(any())).thenReturn(Set.of("0002"));
+        List<StudentDTO> students = Arrays.asList(student("0001", "Jean"), student("0002", "Marie"), student("0001", "Paul"));
+
+        //WHEN
+        StudentBatchResultDTO result = service.createStudents(students);
+
+        //THEN
+        ArgumentCaptor<Collection<String>> numbers = ArgumentCaptor.forClass(Collection.class);
+        verify(studentRepository, times(1)).findExistingStudentNumbers(numbers.capture());
+        assertThat(numbers.getValue()).containsExactlyInAnyOrder("0001", "0002");
+        ArgumentCaptor<Collection<Student>> inserted = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), inserted.capture(), eq(1000), any(ParameterizedPreparedStatementSetter.class));
+        assertThat(inserted.getValue()).extracting(Student::getFirstName).containsExactly("Jean");
+        verify(eventPublisher, times(1)).publishEvent(any(StudentChangeEvent.class));
+        assertThat(result.getCreated()).isEqualTo(1);
+        assertThat(result.getRejected()).isEqualTo(2);
+        assertThat(result.getItems()).extracting(StudentBatchItemDTO::getStatus).containsExactly(
+                StudentBatchItemDTO.Status.CREATED, StudentBatchItemDTO.Status.REJECTED, StudentBatchItemDTO.Status.REJECTED);
+        assertThat(result.getItems().get(1).getMessage()).contains("already exists");
+        assertThat(result.getItems().get(2).getMessage()).contains("more than once");
+    }
+
+    @DisplayName("Un étudiant invalide est rejeté sans requête d'existence")
+    @Test
+    public void test_invalid_students_are_rejected() {
+        //GIVEN
+        StudentDTO future = student("0002", "Marie");
+        future.setBirthDate(LocalDate.now().plusDays(1));
+
+        //WHEN
+        StudentBatchResultDTO result = service.createStudents(Arrays.asList(student("0001", null), future, null));
+
+        //THEN
+        assertThat(result.getCreated()).isZero();
+        assertThat(result.getItems()).extracting(StudentBatchItemDTO::getMessage)
+                .containsExactly("firstName must not be blank", "Student isn't born yet", "Student must not be null");
+        verify(studentRepository, never()).findExistingStudentNumbers(any());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @SuppressWarnings("unchecked")
+    @DisplayName("Un lot trop grand ou en conflit avec une création concurrente renvoie une erreur")
+    @Test
+    public void test_create_students_errors() {
+        //GIVEN
+        when(studentRepository.findExistingStudentNumbers(any())).thenReturn(Set.of());
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new DuplicateKeyException("duplicate"));
+
+        //THEN
+        Assertions.assertThrows(IllegalArgumentException.class, () -> service.createStudents(List.of(
+                student("0001", "Jean"), student("0002", "Jean"), student("0003", "Jean"), student("0004", "Jean"))));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> service.createStudents(List.of(student("0001", "Jean"))));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+}
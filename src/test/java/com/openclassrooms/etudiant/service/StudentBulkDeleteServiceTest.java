@@ -0,0 +1,106 @@
+package com.openclassrooms.etudiant.service;
+
+import com.openclassrooms.etudiant.dto.StudentDeleteRequestDTO;
+import com.openclassrooms.etudiant.dto.StudentDeleteResultDTO;
+import com.openclassrooms.etudiant.repository.StudentRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+public class StudentBulkDeleteServiceTest {
+    private static final LocalDate BEFORE = LocalDate.of(2026, 9, 1);
+
+    @Mock
+    private StudentRepository studentRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    private StudentBulkDeleteService service;
+
+    @BeforeEach
+    public void init() {
+        service = new StudentBulkDeleteService(studentRepository, eventPublisher, transactionManager, 5, 2);
+    }
+
+    @DisplayName("Les numéros étudiants donnés sont supprimés par morceaux, chacun dans sa transaction, et seuls les étudiants existants sont annoncés")
+    @Test
+    public void test_delete_students_by_numbers_in_chunks() {
+        //GIVEN
+        StudentDeleteRequestDTO request = new StudentDeleteRequestDTO();
+        request.setStudentNumbers(List.of("0001", "0002", "0003", "0002"));
+        when(studentRepository.lockStudentNumbersIn(List.of("0001", "0002"))).thenReturn(List.of("0001", "0002"));
+        when(studentRepository.lockStudentNumbersIn(List.of("0003"))).thenReturn(List.of());
+        when(studentRepository.deleteByStudentNumberIn(List.of("0001", "0002"))).thenReturn(2);
+
+        //WHEN
+        StudentDeleteResultDTO result = service.deleteStudents(request);
+
+        //THEN
+        assertThat(result.getDeleted()).isEqualTo(2);
+        verify(studentRepository, times(1)).deleteByStudentNumberIn(anyCollection());
+        verify(transactionManager, times(2)).commit(any());
+        verify(eventPublisher, times(2)).publishEvent(any(StudentChangeEvent.class));
+        verify(studentRepository, never()).findByStudentNumber(anyString());
+    }
+
+    @DisplayName("Les étudiants dont l'inscription est terminée sont supprimés jusqu'au dernier morceau incomplet")
+    @Test
+    public void test_delete_students_by_subscribe_end() {
+        //GIVEN
+        StudentDeleteRequestDTO request = new StudentDeleteRequestDTO();
+        request.setSubscribeEndBefore(BEFORE);
+        when(studentRepository.lockStudentNumbersBySubscribeEndBefore(BEFORE, 2))
+                .thenReturn(List.of("0001", "0002"), List.of("0003"));
+        when(studentRepository.deleteByStudentNumberIn(anyCollection())).thenReturn(2, 1);
+
+        //WHEN
+        StudentDeleteResultDTO result = service.deleteStudents(request);
+
+        //THEN
+        assertThat(result.getDeleted()).isEqualTo(3);
+        verify(studentRepository, times(2)).lockStudentNumbersBySubscribeEndBefore(BEFORE, 2);
+        verify(transactionManager, times(2)).commit(any());
+        verify(eventPublisher, times(3)).publishEvent(any(StudentChangeEvent.class));
+    }
+
+    @DisplayName("Une demande sans critère ou avec les deux critères est refusée")
+    @Test
+    public void test_delete_students_requires_one_criterion() {
+        //GIVEN
+        StudentDeleteRequestDTO both = new StudentDeleteRequestDTO();
+        both.setStudentNumbers(List.of("0001"));
+        both.setSubscribeEndBefore(BEFORE);
+
+        //THEN
+        Assertions.assertThrows(IllegalArgumentException.class, () -> service.deleteStudents(new StudentDeleteRequestDTO()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> service.deleteStudents(both));
+        verifyNoInteractions(studentRepository);
+    }
+
+    @DisplayName("Une liste de numéros plus longue que la taille maximale est refusée")
+    @Test
+    public void test_delete_students_rejects_too_many_numbers() {
+        //GIVEN
+        StudentDeleteRequestDTO request = new StudentDeleteRequestDTO();
+        request.setStudentNumbers(List.of("1", "2", "3", "4", "5", "6"));
+
+        //THEN
+        Assertions.assertThrows(IllegalArgumentException.class, () -> service.deleteStudents(request));
+        verifyNoInteractions(studentRepository);
+    }
+}
@@ -0,0 +1,193 @@
+package com.openclassrooms.etudiant.service;
+
+import com.openclassrooms.etudiant.entities.StudentChange;
+import com.openclassrooms.etudiant.mapper.StudentChangeMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+public class StudentChangeFeedTest {
+    @Mock
+    private StudentChangeLog changeLog;
+    @Mock
+    private StudentChangeMapper changeMapper;
+    @Mock
+    private SseEmitter emitter;
+    private StudentChangeFeed feed;
+
+    @BeforeEach
+    public void init() {
+        when(changeLog.getMaxSize()).thenReturn(100);
+        feed = spy(new StudentChangeFeed(changeLog, changeMapper, new SimpleMeterRegistry(),
+                Duration.ofMinutes(30), Duration.ofSeconds(15), Duration.ofSeconds(1), 1, 2));
+        doReturn(emitter).when(feed).createEmitter();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        feed.shutdown();
+    }
+
+    @DisplayName("Les changements qui suivent la séquence d'un abonné lui sont envoyés au prochain relevé")
+    @Test
+    public void test_poll_sends_changes_after_subscriber_sequence() throws IOException {
+        //GIVEN
+        feed.subscribe(3L);
+        when(changeLog.read(3L, Limit.of(100))).thenReturn(List.of(
+                new StudentChange(4L, StudentChange.Type.CREATED, "0001", LocalDateTime.now()),
+                new StudentChange(6L, StudentChange.Type.DELETED, "0002", LocalDateTime.now())));
+
+        //WHEN
+        feed.poll();
+
+        //THEN
+        verify(emitter, timeout(1000).times(2)).send(any(SseEmitter.SseEventBuilder.class));
+        verify(changeLog, timeout(1000)).read(3L, Limit.of(100));
+        assertThat(feed.getSubscriberCount()).isEqualTo(1);
+    }
+
+    @DisplayName("Un abonné dont la connexion est coupée est retiré")
+    @Test
+    public void test_poll_drops_gone_subscriber() throws IOException, InterruptedException {
+        //GIVEN
+        feed.subscribe(3L);
+        when(changeLog.read(3L, Limit.of(100))).thenReturn(List.of(
+                new StudentChange(4L, StudentChange.Type.UPDATED, "0001", LocalDateTime.now())));
+        doThrow(new IOException("Broken pipe")).when(emitter).send(any(SseEmitter.SseEventBuilder.class));
+        // completeWithError is synchronized: a verify with timeout would hold the mock's monitor and block it.
+        CountDownLatch completed = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            completed.countDown();
+            return null;
+        }).when(emitter).completeWithError(any());
+
+        //WHEN
+        feed.poll();
+
+        //THEN
+        assertThat(completed.await(5, TimeUnit.SECONDS)).isTrue();
+        verify(emitter).completeWithError(any(IOException.class));
+        assertThat(feed.getSubscriberCount()).isZero();
+    }
+
+    @DisplayName("Un abonnement au-delà du nombre maximal d'abonnés est refusé")
+    @Test
+    public void test_subscribe_rejects_too_many_subscribers() {
+        //GIVEN
+        feed.subscribe(0L);
+
+        //THEN
+        Assertions.assertThrows(RejectedExecutionException.class, () -> feed.subscribe(0L));
+    }
+
+    @DisplayName("Un abonné depuis une séquence purgée reçoit un événement d'expiration qui clôt le flux")
+    @Test
+    public void test_poll_expires_purged_sequence() throws IOException, InterruptedException {
+        //GIVEN
+        feed.subscribe(3L);
+        when(changeLog.read(3L, Limit.of(100))).thenThrow(new StudentChangeExpiredException("expired"));
+        CountDownLatch completed = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            completed.countDown();
+            return null;
+        }).when(emitter).complete();
+
+        //WHEN
+        feed.poll();
+
+        //THEN
+        assertThat(completed.await(5, TimeUnit.SECONDS)).isTrue();
+        verify(emitter).send(any(SseEmitter.SseEventBuilder.class));
+        assertThat(feed.getSubscriberCount()).isZero();
+    }
+
+    @DisplayName("Un abonné sans séquence part de la dernière séquence, trouvée par le relevé et non par la requête")
+    @Test
+    public void test_subscribe_without_sequence_starts_at_head() throws IOException {
+        //GIVEN
+        when(changeLog.head()).thenReturn(7L);
+
+        //WHEN
+        feed.subscribe(null);
+
+        //THEN
+        verify(changeLog, never()).head();
+        verify(changeLog, never()).read(anyLong(), any(Limit.class));
+        feed.poll();
+        verify(changeLog).head();
+        verify(emitter, timeout(1000)).send(any(SseEmitter.SseEventBuilder.class));
+    }
+
+    @DisplayName("Un abonné qui ne lit plus est retiré après le délai d'envoi sans retarder les autres abonnés")
+    @Test
+    public void test_poll_drops_stalled_subscriber() throws IOException, InterruptedException {
+        //GIVEN
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        StudentChangeFeed feed = spy(new StudentChangeFeed(changeLog, changeMapper, meterRegistry,
+                Duration.ofMinutes(30), Duration.ofSeconds(15), Duration.ofSeconds(1), 3, 1));
+        SseEmitter stalled = mock(SseEmitter.class);
+        SseEmitter healthy = mock(SseEmitter.class);
+        doReturn(stalled, healthy).when(feed).createEmitter();
+        when(changeLog.read(3L, Limit.of(100))).thenReturn(List.of(
+                new StudentChange(4L, StudentChange.Type.UPDATED, "0001", LocalDateTime.now())));
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch delivered = new CountDownLatch(1);
+        CountDownLatch completed = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            sending.countDown();
+            release.await();
+            return null;
+        }).when(stalled).send(any(SseEmitter.SseEventBuilder.class));
+        doAnswer(invocation -> {
+            completed.countDown();
+            return null;
+        }).when(stalled).complete();
+        doAnswer(invocation -> {
+            delivered.countDown();
+            return null;
+        }).when(healthy).send(any(SseEmitter.SseEventBuilder.class));
+        feed.subscribe(3L);
+        feed.poll();
+        assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+        feed.subscribe(3L);
+        feed.poll();
+        // The only sender is stuck in the stalled write.
+        assertThat(delivered.await(200, TimeUnit.MILLISECONDS)).isFalse();
+        Thread.sleep(1000);
+
+        //WHEN
+        feed.poll();
+
+        //THEN
+        assertThat(delivered.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(feed.getSubscriberCount()).isEqualTo(1);
+        assertThat(meterRegistry.counter("student.changes.subscribers.stalled").count()).isEqualTo(1);
+        release.countDown();
+        assertThat(completed.await(5, TimeUnit.SECONDS)).isTrue();
+        feed.shutdown();
+    }
+}
@@ -0,0 +1,153 @@
+package com.openclassrooms.etudiant.service;
+
+import com.openclassrooms.etudiant.entities.StudentChange;
+import com.openclassrooms.etudiant.repository.StudentChangeRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+public class StudentChangeLogTest {
+    @Mock
+    private StudentChangeRepository changeRepository;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    private StudentChangeLog changeLog;
+
+    @BeforeEach
+    public void init() {
+        changeLog = new StudentChangeLog(changeRepository, jdbcTemplate, Duration.ofSeconds(2), Duration.ofDays(30), 100);
+    }
+
+    @DisplayName("Les changements d'une transaction sont insérés ensemble juste avant sa validation")
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_changes_are_inserted_before_commit() {
+        //GIVEN
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            changeLog.onStudentChange(new StudentChangeEvent(StudentChangeEvent.Type.CREATED, "0001", null));
+            changeLog.onStudentChange(new StudentChangeEvent(StudentChangeEvent.Type.DELETED, "0002", null));
+            verifyNoInteractions(jdbcTemplate);
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+
+            //WHEN
+            synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+
+            //THEN
+            assertThat(synchronizations).hasSize(1);
+            ArgumentCaptor<Collection<StudentChange>> changes = ArgumentCaptor.forClass(Collection.class);
+            verify(jdbcTemplate).batchUpdate(anyString(), changes.capture(), eq(2), any(ParameterizedPreparedStatementSetter.class));
+            assertThat(changes.getValue()).extracting(StudentChange::getType, StudentChange::getStudentNumber)
+                    .containsExactly(tuple(StudentChange.Type.CREATED, "0001"), tuple(StudentChange.Type.DELETED, "0002"));
+            synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            assertThat(TransactionSynchronizationManager.hasResource(changeLog)).isFalse();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @DisplayName("Les changements d'une transaction imbriquée sont insérés avec elle, et ceux de la transaction suspendue à sa reprise")
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_changes_of_suspended_transaction_are_kept_apart() {
+        //GIVEN
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            changeLog.onStudentChange(new StudentChangeEvent(StudentChangeEvent.Type.CREATED, "0001", null));
+            List<TransactionSynchronization> outer = TransactionSynchronizationManager.getSynchronizations();
+            outer.forEach(TransactionSynchronization::suspend);
+            TransactionSynchronizationManager.clearSynchronization();
+            TransactionSynchronizationManager.initSynchronization();
+
+            //WHEN
+            changeLog.onStudentChange(new StudentChangeEvent(StudentChangeEvent.Type.DELETED, "0002", null));
+            List<TransactionSynchronization> inner = TransactionSynchronizationManager.getSynchronizations();
+            inner.forEach(synchronization -> synchronization.beforeCommit(false));
+            inner.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            TransactionSynchronizationManager.clearSynchronization();
+            TransactionSynchronizationManager.initSynchronization();
+            outer.forEach(TransactionSynchronizationManager::registerSynchronization);
+            outer.forEach(TransactionSynchronization::resume);
+            changeLog.onStudentChange(new StudentChangeEvent(StudentChangeEvent.Type.UPDATED, "0003", null));
+            outer.forEach(synchronization -> synchronization.beforeCommit(false));
+
+            //THEN
+            assertThat(TransactionSynchronizationManager.getSynchronizations()).hasSize(1);
+            ArgumentCaptor<Collection<StudentChange>> changes = ArgumentCaptor.forClass(Collection.class);
+            verify(jdbcTemplate, times(2)).batchUpdate(anyString(), changes.capture(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+            assertThat(changes.getAllValues().get(0)).extracting(StudentChange::getStudentNumber).containsExactly("0002");
+            assertThat(changes.getAllValues().get(1)).extracting(StudentChange::getStudentNumber).containsExactly("0001", "0003");
+        } finally {
+            TransactionSynchronizationManager.unbindResourceIfPossible(changeLog);
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @DisplayName("Hors transaction, un changement est inséré immédiatement")
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_change_is_inserted_without_transaction() {
+        //WHEN
+        changeLog.onStudentChange(new StudentChangeEvent(StudentChangeEvent.Type.UPDATED, "0001", null));
+
+        //THEN
+        verify(jdbcTemplate).batchUpdate(anyString(), anyCollection(), eq(1), any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @DisplayName("Seuls les changements plus anciens que la fenêtre de stabilisation sont lus")
+    @Test
+    public void test_read_only_settled_changes() {
+        //GIVEN
+        StudentChange change = new StudentChange(4L, StudentChange.Type.UPDATED, "0001", LocalDateTime.now().minusMinutes(1));
+        when(changeRepository.findSettledAfter(3L, Duration.ofSeconds(2).toNanos(), Limit.of(10))).thenReturn(List.of(change));
+
+        //WHEN
+        List<StudentChange> changes = changeLog.read(3, 10);
+
+        //THEN
+        assertThat(changes).containsExactly(change);
+        verify(changeRepository, never()).existsById(any());
+    }
+
+    @DisplayName("Une séquence purgée du journal est signalée comme expirée")
+    @Test
+    public void test_read_purged_sequence_is_expired() {
+        //GIVEN
+        when(changeRepository.findSettledAfter(eq(3L), anyLong(), any()))
+                .thenReturn(List.of(new StudentChange(9L, StudentChange.Type.CREATED, "0001", LocalDateTime.now())));
+        when(changeRepository.existsById(3L)).thenReturn(false);
+
+        //THEN
+        Assertions.assertThrows(StudentChangeExpiredException.class, () -> changeLog.read(3, 10));
+    }
+
+    @DisplayName("Une taille de page hors limites est refusée")
+    @Test
+    public void test_read_rejects_invalid_size() {
+        //THEN
+        Assertions.assertThrows(IllegalArgumentException.class, () -> changeLog.read(0, 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> changeLog.read(0, 101));
+        verifyNoInteractions(changeRepository);
+    }
+}
@@ -0,0 +1,88 @@
+package com.openclassrooms.etudiant.service;
+
+import com.openclassrooms.etudiant.entities.Student;
+import com.openclassrooms.etudiant.mapper.StudentDtoMapperImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+public class StudentDtoCacheTest {
+    private static final String STUDENT_NUM = "000001";
+    private static final Instant UPDATED_AT = Instant.parse("2026-03-01T10:15:30.123456Z");
+
+    @Mock
+    private StudentService studentService;
+    private MeterRegistry meterRegistry;
+    private StudentDtoCache cache;
+
+    @BeforeEach
+    public void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new StudentDtoCache(studentService, new StudentDtoMapperImpl(), meterRegistry, 100, Duration.ofMinutes(10));
+        Student student = new Student();
+        student.setStudentNumber(STUDENT_NUM);
+        student.setId(7L);
+        student.setVersion(3L);
+        student.setLastName("Smith");
+        student.setUpdated_at(LocalDateTime.ofInstant(UPDATED_AT, ZoneId.systemDefault()));
+        when(studentService.getStudentByStudentNum(STUDENT_NUM)).thenReturn(student);
+    }
+
+    @DisplayName("Un étudiant lu deux fois n'est chargé qu'une fois")
+    @Test
+    public void test_get_twice_loads_once() {
+        //WHEN
+        CachedStudent first = cache.get(STUDENT_NUM);
+        CachedStudent second = cache.get(STUDENT_NUM);
+
+        //THEN
+        assertThat(second).isSameAs(first);
+        assertThat(first.getStudent().getLastName()).isEqualTo("Smith");
+        assertThat(first.getEtag()).isEqualTo("\"7-3\"");
+        assertThat(first.getLastModified()).isEqualTo(UPDATED_AT);
+        verify(studentService, times(1)).getStudentByStudentNum(STUDENT_NUM);
+        assertThat(cache.stats().getHitCount()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", StudentDtoCache.NAME).tag("result", "miss")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @DisplayName("Une modification de l'étudiant vide son entrée")
+    @Test
+    public void test_change_invalidates_entry() {
+        //GIVEN
+        cache.get(STUDENT_NUM);
+
+        //WHEN
+        cache.onStudentChange(new StudentChangeEvent(StudentChangeEvent.Type.UPDATED, STUDENT_NUM, null));
+        cache.get(STUDENT_NUM);
+
+        //THEN
+        verify(studentService, times(2)).getStudentByStudentNum(STUDENT_NUM);
+    }
+
+    @DisplayName("Un étudiant inexistant renvoie une erreur et n'est pas mis en cache")
+    @Test
+    public void test_get_unknown_student_throws_IllegalArgumentException() {
+        //GIVEN
+        when(studentService.getStudentByStudentNum("unknown")).thenThrow(new IllegalArgumentException("Student does not exist"));
+
+        //THEN
+        Assertions.assertThrows(IllegalArgumentException.class, () -> cache.get("unknown"));
+        assertThat(cache.stats().getSize()).isZero();
+    }
+}
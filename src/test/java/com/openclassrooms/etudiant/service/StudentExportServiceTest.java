@@ -0,0 +1,86 @@
+package com.openclassrooms.etudiant.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.openclassrooms.etudiant.entities.Student;
+import com.openclassrooms.etudiant.mapper.StudentCsvMapper;
+import com.openclassrooms.etudiant.mapper.StudentDtoMapperImpl;
+import com.openclassrooms.etudiant.repository.StudentRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+public class StudentExportServiceTest {
+    @Mock
+    private StudentRepository studentRepository;
+    @Mock
+    private EntityManager entityManager;
+    private StudentExportService service;
+
+    @BeforeEach
+    public void init() {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        service = new StudentExportService(studentRepository, new StudentDtoMapperImpl(), new StudentCsvMapper(),
+                objectMapper, entityManager);
+    }
+
+    private Student student(String studentNumber, String lastName) {
+        Student student = new Student();
+        student.setStudentNumber(studentNumber);
+        student.setFirstName("Jean");
+        student.setLastName(lastName);
+        student.setBirthDate(LocalDate.of(2000, 2, 1));
+        return student;
+    }
+
+    @DisplayName("L'export NDJSON écrit un étudiant par ligne et détache chaque entité")
+    @Test
+    public void test_export_ndjson() throws Exception {
+        //GIVEN
+        when(studentRepository.streamByStudentNumberGreaterThanOrderByStudentNumber("0001"))
+                .thenReturn(Stream.of(student("0002", "Smith"), student("0003", "Durand")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        //WHEN
+        long count = service.exportNdjson("0001", out);
+
+        //THEN
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(count).isEqualTo(2);
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).startsWith("{\"studentNumber\":\"0002\"");
+        assertThat(lines[1]).startsWith("{\"studentNumber\":\"0003\"");
+        verify(entityManager, times(2)).detach(any(Student.class));
+    }
+
+    @DisplayName("L'export CSV écrit l'entête puis échappe les valeurs")
+    @Test
+    public void test_export_csv() throws Exception {
+        //GIVEN
+        when(studentRepository.streamByStudentNumberGreaterThanOrderByStudentNumber(""))
+                .thenReturn(Stream.of(student("0001", "Smith, \"Jr\"")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        //WHEN
+        service.exportCsv(null, out);
+
+        //THEN
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "studentNumber,firstName,lastName,birthDate,email,phoneNumber,subscribeStart,subscribeEnd\r\n"
+                        + "0001,Jean,\"Smith, \"\"Jr\"\"\",01/02/2000,,,,\r\n");
+    }
+}
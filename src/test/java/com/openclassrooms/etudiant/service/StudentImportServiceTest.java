@@ -0,0 +1,187 @@
+package com.openclassrooms.etudiant.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.etudiant.entities.Student;
+import com.openclassrooms.etudiant.entities.StudentImportError;
+import com.openclassrooms.etudiant.entities.StudentImportJob;
+import com.openclassrooms.etudiant.mapper.StudentCsvMapper;
+import com.openclassrooms.etudiant.mapper.StudentDtoMapperImpl;
+import com.openclassrooms.etudiant.repository.StudentImportErrorRepository;
+import com.openclassrooms.etudiant.repository.StudentImportJobRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+public class StudentImportServiceTest {
+    private static final String CSV = "lastName,studentNumber,firstName,birthDate\r\n"
+            + "\"Smith, \"\"Jr\"\"\",0001,Jean,01/02/2000\r\n"
+            + "Durand,0002,Marie,01/02/2001\r\n"
+            + "Martin,0003,,01/02/2001\r\n"
+            + "Petit,0004,Paul,01/02/2001\r\n"
+            + "Dupont,0001,Luc,01/02/2001\r\n";
+
+    @Mock
+    private StudentImportJobRepository jobRepository;
+    @Mock
+    private StudentImportErrorRepository errorRepository;
+    @Mock
+    private StudentBatchService studentBatchService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @TempDir
+    private Path directory;
+
+    private final Map<String, StudentImportJob> jobs = new ConcurrentHashMap<>();
+    private final List<StudentImportError> errors = new ArrayList<>();
+    private final List<String> inserted = new ArrayList<>();
+    private StudentImportService service;
+
+    @BeforeEach
+    public void init() throws Exception {
+        when(jobRepository.save(any())).thenAnswer(invocation -> {
+            StudentImportJob job = invocation.getArgument(0);
+            job.setUpdated_at(LocalDateTime.now());
+            jobs.put(job.getId(), job);
+            return job;
+        });
+        when(jobRepository.findById(any())).thenAnswer(invocation -> Optional.ofNullable(jobs.get(invocation.<String>getArgument(0))));
+        when(errorRepository.saveAll(any())).thenAnswer(invocation -> {
+            errors.addAll(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        when(studentBatchService.validate(any())).thenAnswer(invocation ->
+                invocation.<Student>getArgument(0).getFirstName() == null ? "firstName must not be blank" : null);
+        service = new StudentImportService(jobRepository, errorRepository, studentBatchService, new StudentDtoMapperImpl(),
+                new StudentCsvMapper(), new ObjectMapper(), transactionManager, new SimpleMeterRegistry(), directory,
+                2, 2, 1, 4, 100, 64, Duration.ofMinutes(5));
+    }
+
+    @AfterEach
+    public void shutdown() {
+        service.shutdown();
+    }
+
+    private StudentImportJob await(String jobId, StudentImportJob.Status status) throws InterruptedException {
+        for (int i = 0; i < 100 && jobs.get(jobId).getStatus() != status; i++) {
+            Thread.sleep(20);
+        }
+        assertThat(jobs.get(jobId).getStatus()).isEqualTo(status);
+        return jobs.get(jobId);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void recordInserts() {
+        doAnswer(invocation -> {
+            ((Collection<Student>) invocation.getArgument(0)).forEach(student -> inserted.add(student.getStudentNumber()));
+            return Set.of();
+        }).when(studentBatchService).insertNew(any());
+    }
+
+    @DisplayName("Un fichier CSV est importé par lots avec une erreur par ligne rejetée")
+    @Test
+    public void test_import_csv() throws Exception {
+        //GIVEN
+        recordInserts();
+
+        //WHEN
+        StudentImportJob job = service.start("csv", new ByteArrayInputStream(CSV.getBytes(StandardCharsets.UTF_8)));
+
+        //THEN
+        job = await(job.getId(), StudentImportJob.Status.COMPLETED);
+        assertThat(inserted).containsExactly("0001", "0002", "0004", "0001");
+        assertThat(job.getRecordCount()).isEqualTo(5);
+        assertThat(job.getCreatedCount()).isEqualTo(4);
+        assertThat(job.getRejectedCount()).isEqualTo(1);
+        assertThat(job.getBytesRead()).isEqualTo(job.getFileSize());
+        assertThat(errors).extracting(StudentImportError::getRecordNumber).containsExactly(3L);
+        assertThat(Files.exists(directory.resolve(job.getId()))).isFalse();
+    }
+
+    @DisplayName("Un import en échec reprend après le dernier lot enregistré")
+    @Test
+    public void test_resume_failed_import() throws Exception {
+        //GIVEN
+        when(studentBatchService.insertNew(any()))
+                .thenAnswer(invocation -> Set.of())
+                .thenThrow(new IllegalStateException("Database unavailable"));
+        StudentImportJob job = service.start("csv", new ByteArrayInputStream(CSV.getBytes(StandardCharsets.UTF_8)));
+        job = await(job.getId(), StudentImportJob.Status.FAILED);
+        assertThat(job.getRecordCount()).isEqualTo(2);
+        assertThat(job.getBytesRead()).isEqualTo(CSV.substring(0, CSV.indexOf("Martin")).getBytes(StandardCharsets.UTF_8).length);
+        assertThat(job.getError()).isEqualTo("Database unavailable");
+        recordInserts();
+        // The committed records are not read again: an unterminated quote there would fail the import.
+        Path file = directory.resolve(job.getId());
+        byte[] content = Files.readAllBytes(file);
+        content[CSV.indexOf("Durand")] = '"';
+        Files.write(file, content);
+
+        //WHEN
+        service.resume(job.getId());
+
+        //THEN
+        job = await(job.getId(), StudentImportJob.Status.COMPLETED);
+        assertThat(inserted).containsExactly("0004", "0001");
+        assertThat(job.getRecordCount()).isEqualTo(5);
+        assertThat(job.getRejectedCount()).isEqualTo(1);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> service.resume(jobs.keySet().iterator().next()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> service.start("xml", new ByteArrayInputStream(new byte[0])));
+    }
+
+    @DisplayName("Une ligne plus longue que la limite fait échouer l'import")
+    @Test
+    public void test_import_fails_on_too_long_line() throws Exception {
+        //GIVEN
+        recordInserts();
+        String csv = CSV + "Petit," + "0".repeat(100) + ",Paul,01/02/2001\r\n";
+
+        //WHEN
+        StudentImportJob job = service.start("csv", new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        //THEN
+        job = await(job.getId(), StudentImportJob.Status.FAILED);
+        assertThat(job.getError()).isEqualTo("Line at byte " + CSV.length() + " is longer than 64 bytes");
+    }
+
+    @DisplayName("Un champ entre guillemets jamais refermé fait échouer l'import dès qu'il dépasse la limite")
+    @Test
+    public void test_import_fails_on_too_long_quoted_record() throws Exception {
+        //GIVEN
+        recordInserts();
+        String csv = CSV + "\"Petit,0005,Paul,01/02/2001\r\n" + "Petit,0006,Paul,01/02/2001\r\n".repeat(1000);
+
+        //WHEN
+        StudentImportJob job = service.start("csv", new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        //THEN
+        job = await(job.getId(), StudentImportJob.Status.FAILED);
+        assertThat(job.getError()).isEqualTo("Record at byte " + CSV.length() + " is longer than 64 bytes");
+    }
+}
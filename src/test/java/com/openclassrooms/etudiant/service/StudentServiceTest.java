@@ -1,18 +1,41 @@
 package com.openclassrooms.etudiant.service;
 
+import com.openclassrooms.etudiant.dto.StudentDTO;
+import com.openclassrooms.etudiant.dto.StudentSearchDTO;
 import com.openclassrooms.etudiant.entities.Student;
+import com.openclassrooms.etudiant.mapper.StudentDtoMapper;
+import com.openclassrooms.etudiant.mapper.StudentDtoMapperImpl;
 import com.openclassrooms.etudiant.repository.StudentRepository;
+import com.openclassrooms.etudiant.repository.StudentVersion;
 import com.openclassrooms.etudiant.validator.StudentValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.Tuple;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(SpringExtension.class)
@@ -28,8 +51,16 @@ public class StudentServiceTest {
 
     @Mock
     private StudentRepository studentRepository;
+    @Spy
+    private StudentDtoMapper studentDtoMapper = new StudentDtoMapperImpl();
     @Mock
     private StudentValidator studentValidator;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
     @InjectMocks
     private StudentService service;
 
@@ -43,6 +74,135 @@ public class StudentServiceTest {
         verify(studentRepository, times(1)).findAll();
     }
 
+    @Nested
+    @DisplayName("Récupérer une page d'étudiants")
+    class GetStudentsPage {
+        private Student student(long id, String studentNumber) {
+            Student student = new Student();
+            student.setId(id);
+            student.setStudentNumber(studentNumber);
+            return student;
+        }
+
+        @BeforeEach
+        public void init() {
+            ReflectionTestUtils.setField(service, "defaultPageSize", 2);
+            ReflectionTestUtils.setField(service, "maxPageSize", 10);
+        }
+
+        @DisplayName("La première page renvoie un curseur suivant et pas de précédent")
+        @Test
+        public void test_get_first_page() {
+            //GIVEN
+            when(studentRepository.findBy(any(Specification.class), any()))
+                    .thenReturn(List.of(student(1, "0001"), student(2, "0002"), student(3, "0003")));
+
+            //WHEN
+            StudentPage<StudentDTO> page = service.getStudentsPage(StudentSort.STUDENT_NUMBER, Sort.Direction.ASC, null, null);
+
+            //THEN
+            assertThat(page.getContent()).extracting(StudentDTO::getStudentNumber).containsExactly("0001", "0002");
+            assertThat(page.getPrevious()).isNull();
+            StudentCursor next = StudentCursor.decode(page.getNext());
+            assertThat(next.getId()).isEqualTo(2L);
+            assertThat(next.getValue()).isEqualTo("0002");
+            assertThat(next.isBackward()).isFalse();
+        }
+
+        @DisplayName("Une page lue en arrière est remise dans l'ordre")
+        @Test
+        public void test_get_previous_page() {
+            //GIVEN
+            String cursor = new StudentCursor(StudentSort.STUDENT_NUMBER, Sort.Direction.ASC, true, 3L, "0003").encode();
+            when(studentRepository.findBy(any(Specification.class), any()))
+                    .thenReturn(List.of(student(2, "0002"), student(1, "0001")));
+
+            //WHEN
+            StudentPage<StudentDTO> page = service.getStudentsPage(StudentSort.LAST_NAME, Sort.Direction.DESC, null, cursor);
+
+            //THEN
+            assertThat(page.getContent()).extracting(StudentDTO::getStudentNumber).containsExactly("0001", "0002");
+            assertThat(page.getPrevious()).isNull();
+            assertThat(StudentCursor.decode(page.getNext()).getSort()).isEqualTo(StudentSort.STUDENT_NUMBER);
+        }
+
+        @DisplayName("Une recherche est paginée comme la liste")
+        @Test
+        public void test_search_students() {
+            //GIVEN
+            StudentSearchDTO search = new StudentSearchDTO();
+            search.setLastName("Smi");
+            when(studentRepository.findBy(any(Specification.class), any()))
+                    .thenReturn(List.of(student(1, "0001")));
+
+            //WHEN
+            StudentPage<StudentDTO> page = service.searchStudents(search, StudentSort.LAST_NAME, Sort.Direction.ASC, null, null);
+
+            //THEN
+            assertThat(page.getContent()).hasSize(1);
+            assertThat(page.getNext()).isNull();
+            Assertions.assertThrows(IllegalArgumentException.class,
+                    () -> service.searchStudents(null, StudentSort.LAST_NAME, Sort.Direction.ASC, null, null));
+        }
+
+        @DisplayName("Avec des champs demandés seuls ces champs sont renvoyés et les curseurs restent calculés")
+        @Test
+        public void test_get_page_with_fields() {
+            //GIVEN
+            Tuple first = tuple(1L, "0001", "Smith");
+            Tuple second = tuple(2L, "0002", "Durand");
+            Tuple third = tuple(3L, "0003", "Martin");
+            when(studentRepository.findAttributes(any(Specification.class), any(), any(Sort.class), anyInt()))
+                    .thenReturn(List.of(first, second, third));
+
+            //WHEN
+            StudentPage<Map<String, Object>> page = service.getStudentsPage(StudentField.parse("lastName"),
+                    StudentSort.STUDENT_NUMBER, Sort.Direction.ASC, null, null);
+
+            //THEN
+            verify(studentRepository).findAttributes(any(Specification.class),
+                    eq(Set.of("lastName", "studentNumber", "id")), any(Sort.class), eq(3));
+            assertThat(page.getContent()).containsExactly(Map.of("lastName", "Smith"), Map.of("lastName", "Durand"));
+            StudentCursor next = StudentCursor.decode(page.getNext());
+            assertThat(next.getId()).isEqualTo(2L);
+            assertThat(next.getValue()).isEqualTo("0002");
+            Assertions.assertThrows(IllegalArgumentException.class, () -> StudentField.parse("lastName,password"));
+        }
+
+        @DisplayName("Les champs demandés sont renvoyés dans l'ordre de la demande")
+        @Test
+        public void test_get_page_with_fields_keeps_requested_order() {
+            //GIVEN
+            Tuple tuple = tuple(1L, "0001", "Smith");
+            when(studentRepository.findAttributes(any(Specification.class), any(), any(Sort.class), anyInt()))
+                    .thenReturn(List.of(tuple));
+
+            //WHEN
+            StudentPage<Map<String, Object>> page = service.getStudentsPage(StudentField.parse("lastName,studentNumber"),
+                    StudentSort.STUDENT_NUMBER, Sort.Direction.ASC, null, null);
+
+            //THEN
+            assertThat(page.getContent().get(0).keySet()).containsExactly("lastName", "studentNumber");
+        }
+
+        private Tuple tuple(long id, String studentNumber, String lastName) {
+            Tuple tuple = mock(Tuple.class);
+            when(tuple.get("id", Long.class)).thenReturn(id);
+            when(tuple.get("studentNumber")).thenReturn(studentNumber);
+            when(tuple.get("lastName")).thenReturn(lastName);
+            return tuple;
+        }
+
+        @DisplayName("Avec une taille de page trop grande ou un curseur invalide renvoie une erreur")
+        @Test
+        public void test_get_page_with_invalid_parameters_throws_IllegalArgumentException() {
+            Assertions.assertThrows(IllegalArgumentException.class,
+                    () -> service.getStudentsPage(StudentSort.STUDENT_NUMBER, Sort.Direction.ASC, 11, null));
+            Assertions.assertThrows(IllegalArgumentException.class,
+                    () -> service.getStudentsPage(StudentSort.STUDENT_NUMBER, Sort.Direction.ASC, 2, "invalid"));
+        }
+    }
+
     @Nested
     @DisplayName("Récupérer un étudiant")
     class GetStudent {
@@ -176,33 +336,280 @@ public class StudentServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Créer ou mettre à jour un étudiant")
+    class UpsertStudent {
+        private static final long ID = 7L;
+
+        private Student student() {
+            Student student = new Student();
+            student.setFirstName(FIRST_NAME);
+            student.setLastName(LAST_NAME);
+            student.setBirthDate(BIRTH_DATE);
+            return student;
+        }
+
+        private Student studentDb(long version) {
+            Student studentDb = new Student();
+            studentDb.setId(ID);
+            studentDb.setStudentNumber(STUDENT_NUM);
+            studentDb.setFirstName("Old");
+            studentDb.setVersion(version);
+            return studentDb;
+        }
+
+        @DisplayName("Qui existe le met à jour si If-Match porte sa version, sans relecture")
+        @Test
+        public void test_upsert_existing_student() {
+            //GIVEN
+            Student studentDb = studentDb(2);
+            when(studentRepository.findByStudentNumber(STUDENT_NUM)).thenReturn(Optional.of(studentDb));
+
+            //WHEN
+            StudentUpsert upsert = service.upsertStudent(STUDENT_NUM, student(), StudentIfMatch.of(ID, 2));
+
+            //THEN
+            assertThat(upsert.isCreated()).isFalse();
+            assertThat(upsert.getStudent()).isSameAs(studentDb);
+            assertThat(upsert.getStudent().getFirstName()).isEqualTo(FIRST_NAME);
+            verify(studentRepository, times(1)).findByStudentNumber(STUDENT_NUM);
+            verify(studentRepository, times(1)).flush();
+        }
+
+        @DisplayName("Qui existe sans If-Match ou avec une autre version est refusé sans être modifié")
+        @Test
+        public void test_upsert_existing_student_requires_current_version() {
+            //GIVEN
+            when(studentRepository.findByStudentNumber(STUDENT_NUM)).thenReturn(Optional.of(studentDb(2)));
+
+            //THEN
+            Assertions.assertThrows(PreconditionRequiredException.class,
+                    () -> service.upsertStudent(STUDENT_NUM, student(), StudentIfMatch.ABSENT));
+            PreconditionFailedException failed = Assertions.assertThrows(PreconditionFailedException.class,
+                    () -> service.upsertStudent(STUDENT_NUM, student(), StudentIfMatch.parse("\"7-1\"")));
+            assertThat(failed.getCurrentVersion()).isEqualTo(new StudentVersion(ID, 2));
+            // The same version of a former student with this number.
+            Assertions.assertThrows(PreconditionFailedException.class,
+                    () -> service.upsertStudent(STUDENT_NUM, student(), StudentIfMatch.parse("\"6-2\"")));
+            verify(studentRepository, never()).save(any(Student.class));
+            assertThat(meterRegistry.get("student.version.conflicts").tag("operation", "update").tag("outcome", "failed")
+                    .counter().count()).isEqualTo(2);
+        }
+
+        @DisplayName("Modifié entre-temps par une autre requête renvoie un conflit")
+        @Test
+        public void test_upsert_student_changed_concurrently() {
+            //GIVEN
+            when(studentRepository.findByStudentNumber(STUDENT_NUM)).thenReturn(Optional.of(studentDb(2)));
+            doThrow(new OptimisticLockingFailureException("Row was updated")).when(studentRepository).flush();
+
+            //THEN
+            Assertions.assertThrows(PreconditionFailedException.class,
+                    () -> service.upsertStudent(STUDENT_NUM, student(), StudentIfMatch.of(ID, 2)));
+        }
+
+        @DisplayName("Qui n'existe pas le crée avec le numéro étudiant du chemin")
+        @Test
+        public void test_upsert_new_student() {
+            //GIVEN
+            when(studentRepository.findByStudentNumber(STUDENT_NUM)).thenReturn(Optional.empty());
+
+            //WHEN
+            StudentUpsert upsert = service.upsertStudent(STUDENT_NUM, student(), StudentIfMatch.ABSENT);
+
+            //THEN
+            assertThat(upsert.isCreated()).isTrue();
+            assertThat(upsert.getStudent().getStudentNumber()).isEqualTo(STUDENT_NUM);
+            verify(studentRepository, times(1)).save(upsert.getStudent());
+            verify(eventPublisher, times(1)).publishEvent(any(StudentChangeEvent.class));
+        }
+
+        @DisplayName("Créé entre-temps par une autre requête est relu au second essai")
+        @Test
+        public void test_upsert_student_created_concurrently() {
+            //GIVEN
+            when(studentRepository.findByStudentNumber(STUDENT_NUM))
+                    .thenReturn(Optional.empty())
+                    .thenReturn(Optional.of(studentDb(0)));
+            when(studentRepository.save(any(Student.class)))
+                    .thenThrow(new DataIntegrityViolationException("Duplicate entry"));
+
+            //THEN
+            Assertions.assertThrows(PreconditionRequiredException.class,
+                    () -> service.upsertStudent(STUDENT_NUM, student(), StudentIfMatch.ABSENT));
+            verify(studentRepository, times(2)).findByStudentNumber(STUDENT_NUM);
+        }
+
+        @DisplayName("Modifié entre-temps pendant le second essai renvoie aussi un conflit")
+        @Test
+        public void test_upsert_student_changed_concurrently_on_retry() {
+            //GIVEN
+            when(studentRepository.findByStudentNumber(STUDENT_NUM)).thenReturn(Optional.of(studentDb(2)));
+            doThrow(new DataIntegrityViolationException("Duplicate entry"))
+                    .doThrow(new OptimisticLockingFailureException("Row was updated"))
+                    .when(studentRepository).flush();
+
+            //THEN
+            Assertions.assertThrows(PreconditionFailedException.class,
+                    () -> service.upsertStudent(STUDENT_NUM, student(), StudentIfMatch.of(ID, 2)));
+            verify(studentRepository, times(2)).flush();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nested
+    @DisplayName("Modifier partiellement un étudiant")
+    class PatchStudent {
+        private static final long ID = 7L;
+
+        @DisplayName("N'écrit que les champs du patch, null les effaçant, sans lire l'étudiant")
+        @Test
+        public void test_patch_student_writes_only_patched_fields() {
+            //GIVEN
+            Student student = new Student();
+            student.setFirstName(FIRST_NAME);
+            when(studentRepository.updateAttributes(any(), any())).thenReturn(1);
+
+            //WHEN
+            StudentVersion version = service.patchStudent(STUDENT_NUM, EnumSet.of(StudentField.FIRST_NAME, StudentField.EMAIL), student, StudentIfMatch.of(ID, 4));
+
+            //THEN
+            ArgumentCaptor<Map<String, Object>> attributes = ArgumentCaptor.forClass(Map.class);
+            verify(studentRepository, times(1)).updateAttributes(any(), attributes.capture());
+            assertThat(attributes.getValue()).containsOnlyKeys("firstName", "email").containsEntry("firstName", FIRST_NAME).containsEntry("email", null);
+            verify(studentValidator, times(1)).validate(student, Set.of("firstName", "email"));
+            verify(studentRepository, never()).findByStudentNumber(any());
+            verify(eventPublisher, times(1)).publishEvent(any(StudentChangeEvent.class));
+            assertThat(version).isEqualTo(new StudentVersion(ID, 5));
+        }
+
+        @DisplayName("Sans If-Match est refusé, avec une version dépassée renvoie la version courante")
+        @Test
+        public void test_patch_student_checks_version() {
+            //GIVEN
+            Student student = new Student();
+            student.setEmail(EMAIL);
+            when(studentRepository.updateAttributes(any(), any())).thenReturn(0);
+            when(studentRepository.findVersionByStudentNumber(STUDENT_NUM)).thenReturn(Optional.of(new StudentVersion(ID, 6)));
+
+            //THEN
+            Assertions.assertThrows(PreconditionRequiredException.class,
+                    () -> service.patchStudent(STUDENT_NUM, EnumSet.of(StudentField.EMAIL), student, StudentIfMatch.ABSENT));
+            PreconditionFailedException failed = Assertions.assertThrows(PreconditionFailedException.class,
+                    () -> service.patchStudent(STUDENT_NUM, EnumSet.of(StudentField.EMAIL), student, StudentIfMatch.of(ID, 5)));
+            assertThat(failed.getCurrentVersion()).isEqualTo(new StudentVersion(ID, 6));
+            verify(studentRepository, times(1)).updateAttributes(any(), any());
+            verify(eventPublisher, never()).publishEvent(any(StudentChangeEvent.class));
+        }
+
+        @DisplayName("Ne peut pas effacer un champ obligatoire ni changer le numéro étudiant")
+        @Test
+        public void test_patch_student_rejects_required_fields_removal() {
+            //GIVEN
+            Student student = new Student();
+            student.setStudentNumber("000002");
+
+            //THEN
+            Assertions.assertThrows(IllegalArgumentException.class,
+                    () -> service.patchStudent(STUDENT_NUM, EnumSet.of(StudentField.LAST_NAME), new Student(), StudentIfMatch.of(ID, 1)));
+            Assertions.assertThrows(IllegalArgumentException.class,
+                    () -> service.patchStudent(STUDENT_NUM, EnumSet.of(StudentField.STUDENT_NUMBER), student, StudentIfMatch.of(ID, 1)));
+            verify(studentRepository, never()).updateAttributes(any(), any());
+        }
+
+        @DisplayName("Qui ne modifie aucune ligne signale l'étudiant inconnu ou les dates incohérentes")
+        @Test
+        public void test_patch_student_without_updated_row() {
+            //GIVEN
+            Student student = new Student();
+            student.setSubscribeEnd(SUBSCRIBE_START);
+            when(studentRepository.updateAttributes(any(), any())).thenReturn(0);
+            when(studentRepository.findVersionByStudentNumber(STUDENT_NUM)).thenReturn(Optional.empty(), Optional.of(new StudentVersion(ID, 1)));
+
+            //THEN
+            IllegalArgumentException unknown = Assertions.assertThrows(IllegalArgumentException.class,
+                    () -> service.patchStudent(STUDENT_NUM, EnumSet.of(StudentField.SUBSCRIBE_END), student, StudentIfMatch.of(ID, 1)));
+            assertThat(unknown.getMessage()).isEqualTo("Student does not exist");
+            IllegalArgumentException dates = Assertions.assertThrows(IllegalArgumentException.class,
+                    () -> service.patchStudent(STUDENT_NUM, EnumSet.of(StudentField.SUBSCRIBE_END), student, StudentIfMatch.of(ID, 1)));
+            assertThat(dates.getMessage()).isEqualTo("Subscribe can't end before it starts");
+            verify(eventPublisher, never()).publishEvent(any(StudentChangeEvent.class));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
     @Nested
     @DisplayName("Supprimer un étudiant")
     class DeleteStudent {
+        private static final long ID = 7L;
+
         @DisplayName("Dont le numéro étudiant n'existe pas renvoie une erreur")
         @Test
         public void test_delete_student_with_invalid_studentnum_throws_IllegalArgumentException() {
             //GIVEN
-            when(studentRepository.findByStudentNumber(any(String.class))).thenReturn(Optional.empty());
+            when(studentRepository.delete(any(Specification.class))).thenReturn(0L);
+            when(studentRepository.findVersionByStudentNumber(STUDENT_NUM)).thenReturn(Optional.empty());
 
             //THEN
-            Assertions.assertThrows(IllegalArgumentException.class, () -> service.deleteStudent(any(String.class)));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> service.deleteStudent(STUDENT_NUM, StudentIfMatch.of(ID, 0)));
+            verify(eventPublisher, never()).publishEvent(any(StudentChangeEvent.class));
         }
 
         @DisplayName("Dont le numéro étudiant existe fonctionne")
         @Test
         public void test_delete_student() {
             //GIVEN
-            Student student = new Student();
-            student.setStudentNumber(STUDENT_NUM);
-            when(studentRepository.findByStudentNumber(any(String.class))).thenReturn(Optional.of(student));
-            doNothing().when(studentValidator).validate(any(Student.class));
+            when(studentRepository.delete(any(Specification.class))).thenReturn(1L);
 
             //WHEN
-            service.deleteStudent(STUDENT_NUM);
+            service.deleteStudent(STUDENT_NUM, StudentIfMatch.of(ID, 3));
+
+            //THEN
+            verify(studentRepository, never()).findByStudentNumber(any(String.class));
+            verify(studentRepository, times(1)).delete(any(Specification.class));
+            verify(eventPublisher, times(1)).publishEvent(any(StudentChangeEvent.class));
+        }
+
+        @DisplayName("Avec If-Match * supprime quelle que soit la version, sans If-Match est refusé")
+        @Test
+        public void test_delete_student_preconditions() {
+            //GIVEN
+            when(studentRepository.deleteByStudentNumber(STUDENT_NUM)).thenReturn(1);
+
+            //WHEN
+            service.deleteStudent(STUDENT_NUM, StudentIfMatch.parse("*"));
+
+            //THEN
+            verify(studentRepository, times(1)).deleteByStudentNumber(STUDENT_NUM);
+            Assertions.assertThrows(PreconditionRequiredException.class, () -> service.deleteStudent(STUDENT_NUM, StudentIfMatch.ABSENT));
+        }
+
+        @DisplayName("Dont la version a changé renvoie un conflit avec la version courante")
+        @Test
+        public void test_delete_student_with_stale_version() {
+            //GIVEN
+            when(studentRepository.delete(any(Specification.class))).thenReturn(0L);
+            when(studentRepository.findVersionByStudentNumber(STUDENT_NUM)).thenReturn(Optional.of(new StudentVersion(ID, 4)));
+
+            //THEN
+            PreconditionFailedException failed = Assertions.assertThrows(PreconditionFailedException.class,
+                    () -> service.deleteStudent(STUDENT_NUM, StudentIfMatch.of(ID, 3)));
+            assertThat(failed.getCurrentVersion()).isEqualTo(new StudentVersion(ID, 4));
+            verify(eventPublisher, never()).publishEvent(any(StudentChangeEvent.class));
+        }
+
+        @DisplayName("Recréé avec le même numéro renvoie un conflit à qui a la version de l'étudiant supprimé")
+        @Test
+        public void test_delete_recreated_student_with_former_version() {
+            //GIVEN
+            when(studentRepository.delete(any(Specification.class))).thenReturn(0L);
+            when(studentRepository.findVersionByStudentNumber(STUDENT_NUM)).thenReturn(Optional.of(new StudentVersion(ID + 1, 0)));
 
             //THEN
-            verify(studentRepository, times(1)).delete(any(Student.class));
+            PreconditionFailedException failed = Assertions.assertThrows(PreconditionFailedException.class,
+                    () -> service.deleteStudent(STUDENT_NUM, StudentIfMatch.of(ID, 0)));
+            assertThat(failed.getCurrentVersion()).isEqualTo(new StudentVersion(ID + 1, 0));
+            verify(eventPublisher, never()).publishEvent(any(StudentChangeEvent.class));
         }
     }
 
@@ -0,0 +1,165 @@
+package com.openclassrooms.etudiant.service;
+
+import com.openclassrooms.etudiant.dto.StudentSuggestionDTO;
+import com.openclassrooms.etudiant.entities.Student;
+import com.openclassrooms.etudiant.repository.StudentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+public class StudentSuggestIndexTest {
+    @Mock
+    private StudentRepository studentRepository;
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    private MeterRegistry meterRegistry;
+    private StudentSuggestIndex index;
+
+    @BeforeEach
+    public void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        index = new StudentSuggestIndex(studentRepository, entityManager, transactionManager, meterRegistry, 0.4, 50);
+        index.put(student("000001", "Jean", "Smith", "jean.smith@mail.fr"));
+        index.put(student("000002", "Marie", "Durand", "marie.durand@mail.fr"));
+        index.put(student("000003", "Hélène", "Dupont", null));
+    }
+
+    private Student student(String studentNumber, String firstName, String lastName, String email) {
+        Student student = new Student();
+        student.setStudentNumber(studentNumber);
+        student.setFirstName(firstName);
+        student.setLastName(lastName);
+        student.setEmail(email);
+        return student;
+    }
+
+    @DisplayName("Un début de nom renvoie l'étudiant correspondant en premier")
+    @Test
+    public void test_suggest_by_name_prefix() {
+        //WHEN
+        List<StudentSuggestionDTO> suggestions = index.suggest("Dur", 10);
+
+        //THEN
+        assertThat(suggestions).isNotEmpty();
+        assertThat(suggestions.get(0).getStudentNumber()).isEqualTo("000002");
+    }
+
+    @DisplayName("Une faute de frappe ou un accent manquant est toléré")
+    @Test
+    public void test_suggest_tolerates_typos() {
+        assertThat(index.suggest("smiht", 10)).extracting(StudentSuggestionDTO::getStudentNumber).first().isEqualTo("000001");
+        assertThat(index.suggest("helene", 10)).extracting(StudentSuggestionDTO::getStudentNumber).first().isEqualTo("000003");
+    }
+
+    @DisplayName("Un début de numéro étudiant est classé en premier")
+    @Test
+    public void test_suggest_by_student_number() {
+        assertThat(index.suggest("000003", 1)).extracting(StudentSuggestionDTO::getStudentNumber).containsExactly("000003");
+    }
+
+    @DisplayName("Les mises à jour et suppressions sont prises en compte")
+    @Test
+    public void test_update_and_remove() {
+        //WHEN
+        index.put(student("000001", "Jean", "Martin", null));
+        index.remove("000002");
+
+        //THEN
+        assertThat(index.suggest("Smith", 10)).isEmpty();
+        assertThat(index.suggest("Martin", 10)).extracting(StudentSuggestionDTO::getStudentNumber).containsExactly("000001");
+        assertThat(index.suggest("Durand", 10)).isEmpty();
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(meterRegistry.get("student.suggest.index.documents").gauge().value()).isEqualTo(2);
+        assertThat(meterRegistry.get("student.suggest.index.bytes").gauge().value()).isPositive();
+    }
+
+    @DisplayName("Les meilleurs étudiants sont retenus parmi de nombreux candidats partageant les trigrammes")
+    @Test
+    public void test_suggest_among_many_candidates() {
+        //GIVEN
+        for (int i = 10; i < 5000; i++) {
+            index.put(student(String.format("%06d", i), "Jean", "Smithson", null));
+        }
+
+        //WHEN
+        List<StudentSuggestionDTO> suggestions = index.suggest("Jean Smithson", 5);
+
+        //THEN
+        assertThat(suggestions).extracting(StudentSuggestionDTO::getStudentNumber)
+                .containsExactly("000010", "000011", "000012", "000013", "000014");
+    }
+
+    @DisplayName("Une limite invalide renvoie une erreur")
+    @Test
+    public void test_suggest_with_invalid_limit_throws_IllegalArgumentException() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> index.suggest("Jean", 51));
+    }
+
+    @DisplayName("Un changement publié sans l'étudiant le relit pour mettre l'index à jour")
+    @Test
+    public void test_change_without_student_reads_it_back() {
+        //GIVEN
+        when(studentRepository.findByStudentNumber("000002"))
+                .thenReturn(Optional.of(student("000002", "Marie", "Martin", "marie.martin@mail.fr")));
+
+        //WHEN
+        index.onStudentChange(new StudentChangeEvent(StudentChangeEvent.Type.UPDATED, "000002", null));
+
+        //THEN
+        assertThat(index.suggest("Martin", 10)).extracting(StudentSuggestionDTO::getStudentNumber).containsExactly("000002");
+        assertThat(index.suggest("Durand", 10)).isEmpty();
+    }
+
+    @DisplayName("Un changement appliqué pendant le chargement n'est pas écrasé par la ligne lue avant lui")
+    @Test
+    public void test_change_during_load_wins_over_loaded_row() throws Exception {
+        //GIVEN
+        Student updated = student("000004", "Paul", "Martin", null);
+        Thread change = new Thread(() -> index.onStudentChange(
+                new StudentChangeEvent(StudentChangeEvent.Type.UPDATED, "000004", updated)));
+        // The change arrives while the load is indexing the row it read before the update.
+        Student loaded = new Student() {
+            @Override
+            public String getFirstName() {
+                if (change.getState() == Thread.State.NEW) {
+                    change.start();
+                    try {
+                        change.join(500);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return "Paul";
+            }
+        };
+        loaded.setStudentNumber("000004");
+        loaded.setLastName("Lefebvre");
+        when(studentRepository.streamByStudentNumberGreaterThanOrderByStudentNumber("")).thenReturn(Stream.of(loaded));
+
+        //WHEN
+        index.load();
+        change.join();
+
+        //THEN
+        assertThat(index.suggest("Paul Martin", 10)).extracting(StudentSuggestionDTO::getStudentNumber).first().isEqualTo("000004");
+        assertThat(index.suggest("Lefebvre", 10)).isEmpty();
+    }
+}
@@ -0,0 +1,133 @@
+package com.openclassrooms.etudiant.service;
+
+import com.openclassrooms.etudiant.configuration.security.JwtUtils;
+import com.openclassrooms.etudiant.dto.TokenIntrospectionDTO;
+import com.openclassrooms.etudiant.entities.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+public class TokenIntrospectionServiceTest {
+    private static final String SECRET = "Vw0ThEB/ia7oHF6BPE9ARyLGIstx/P07XuUmQKO7I1o=";
+    private static final String LOGIN = "login";
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+    private JwtUtils jwtUtils;
+    private TokenIntrospectionService service;
+    private User user;
+
+    @BeforeEach
+    public void init() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "JWT_SECRET", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "JWT_EXPIRATION_IN_MS", 900000);
+        ReflectionTestUtils.setField(jwtUtils, "JWT_CACHE_MAX_SIZE", 100L);
+        ReflectionTestUtils.setField(jwtUtils, "meterRegistry", new SimpleMeterRegistry());
+        jwtUtils.init();
+        service = new TokenIntrospectionService(jwtUtils, tokenRevocationService, new SimpleMeterRegistry(), 100, 4, 2, 4);
+        user = new User();
+        user.setId(1L);
+        user.setLogin(LOGIN);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    @DisplayName("Un lot de tokens renvoie la validité, le sujet et l'expiration de chacun dans l'ordre")
+    @Test
+    public void test_introspect_batch_keeps_order() {
+        //GIVEN
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            tokens.add(i % 2 == 0 ? jwtUtils.generateToken(user) : "not.a.token");
+        }
+
+        //WHEN
+        List<TokenIntrospectionDTO> result = service.introspectAll(tokens);
+
+        //THEN
+        assertThat(result).hasSize(10);
+        for (int i = 0; i < 10; i++) {
+            TokenIntrospectionDTO introspection = result.get(i);
+            assertThat(introspection.isActive()).isEqualTo(i % 2 == 0);
+            assertThat(introspection.getSubject()).isEqualTo(i % 2 == 0 ? LOGIN : null);
+        }
+        assertThat(result.get(0).getExp()).isGreaterThan(System.currentTimeMillis() / 1000);
+    }
+
+    @DisplayName("Un token révoqué est inactif")
+    @Test
+    public void test_introspect_revoked_token_is_inactive() {
+        //GIVEN
+        String token = jwtUtils.generateToken(user);
+        when(tokenRevocationService.isRevoked(any())).thenReturn(true);
+
+        //THEN
+        assertThat(service.introspect(token).isActive()).isFalse();
+    }
+
+    @DisplayName("Un lot trop grand renvoie une erreur")
+    @Test
+    public void test_introspect_too_large_batch_throws_IllegalArgumentException() {
+        //GIVEN
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 101; i++) {
+            tokens.add("token");
+        }
+
+        //THEN
+        Assertions.assertThrows(IllegalArgumentException.class, () -> service.introspectAll(tokens));
+    }
+
+    @DisplayName("Un lot est refusé quand le pool d'introspection est saturé")
+    @Test
+    public void test_introspect_batch_rejected_when_pool_is_saturated() throws Exception {
+        //GIVEN
+        TokenIntrospectionService saturated = new TokenIntrospectionService(jwtUtils, tokenRevocationService,
+                new SimpleMeterRegistry(), 100, 4, 2, 1);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        when(tokenRevocationService.isRevoked(any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return false;
+        });
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            tokens.add(jwtUtils.generateToken(user));
+        }
+        CompletableFuture<List<TokenIntrospectionDTO>> running = CompletableFuture.supplyAsync(() -> saturated.introspectAll(tokens));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        //THEN
+        try {
+            Assertions.assertThrows(RejectedExecutionException.class, () -> saturated.introspectAll(tokens));
+        } finally {
+            release.countDown();
+        }
+        assertThat(running.get(5, TimeUnit.SECONDS)).hasSize(4).allMatch(TokenIntrospectionDTO::isActive);
+        saturated.shutdown();
+    }
+}
@@ -0,0 +1,83 @@
+package com.openclassrooms.etudiant.service;
+
+import com.openclassrooms.etudiant.entities.RevokedToken;
+import com.openclassrooms.etudiant.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+public class TokenRevocationServiceTest {
+    private static final String JTI = "4f1c1d7e-9a7b-4a8e-8a3f-2d6c5b1e0f11";
+
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+    private MeterRegistry meterRegistry;
+    private TokenRevocationService service;
+
+    @BeforeEach
+    public void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        service = new TokenRevocationService(revokedTokenRepository, meterRegistry, 1000, 0.001);
+    }
+
+    @DisplayName("Un jeton inconnu du filtre n'interroge pas la base")
+    @Test
+    public void test_unknown_token_is_not_looked_up() {
+        //WHEN
+        boolean revoked = service.isRevoked(JTI);
+
+        //THEN
+        assertThat(revoked).isFalse();
+        verify(revokedTokenRepository, never()).existsByJti(any());
+        assertThat(meterRegistry.get("jwt.revocation.exact-lookups").counter().count()).isZero();
+    }
+
+    @DisplayName("Un jeton révoqué est confirmé par une recherche exacte")
+    @Test
+    public void test_revoked_token_is_confirmed() {
+        //GIVEN
+        when(revokedTokenRepository.existsByJti(JTI)).thenReturn(true);
+        service.revoke(JTI, LocalDateTime.now().plusMinutes(15));
+
+        //WHEN
+        boolean revoked = service.isRevoked(JTI);
+
+        //THEN
+        assertThat(revoked).isTrue();
+        verify(revokedTokenRepository, times(1)).insertIgnore(eq(JTI), any(LocalDateTime.class));
+        assertThat(meterRegistry.get("jwt.revocation.exact-lookups").counter().count()).isEqualTo(1);
+    }
+
+    @DisplayName("La synchronisation charge les révocations des autres instances")
+    @Test
+    public void test_sync_loads_new_revocations() {
+        //GIVEN
+        when(revokedTokenRepository.findTop1000ByIdGreaterThanOrderByIdAsc(0L))
+                .thenReturn(List.of(new RevokedToken(1L, JTI, LocalDateTime.now().plusMinutes(15))));
+        when(revokedTokenRepository.findTop1000ByIdGreaterThanOrderByIdAsc(1L)).thenReturn(List.of());
+        when(revokedTokenRepository.existsByJti(JTI)).thenReturn(true);
+
+        //WHEN
+        service.sync();
+        service.sync();
+
+        //THEN
+        assertThat(service.isRevoked(JTI)).isTrue();
+        verify(revokedTokenRepository, times(2)).findTop1000ByIdGreaterThanOrderByIdAsc(eq(1L));
+        verify(revokedTokenRepository, never()).findTop1000ByIdGreaterThanOrderByIdAsc(eq(2L));
+    }
+}
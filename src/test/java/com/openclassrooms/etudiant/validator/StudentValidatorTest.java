@@ -13,7 +13,12 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.validation.Errors;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -136,4 +141,82 @@ public class StudentValidatorTest {
         //THEN
         verify(errors, times(0)).rejectValue(any(String.class), any(String.class), any(String.class));
     }
+
+    @DisplayName("Une validation partielle ne vérifie que les champs donnés")
+    @Test
+    public void test_student_validator_checks_only_given_fields(){
+        //GIVEN
+        Student patch = new Student();
+        patch.setEmail("not an email");
+
+        //THEN
+        Assertions.assertDoesNotThrow(() -> validator.validate(patch, Set.of("phoneNumber")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> validator.validate(patch, Set.of("email")));
+    }
+
+    @DisplayName("Les règles enfreintes sont rendues par champ avec leur code")
+    @Test
+    public void test_student_validator_check_returns_violations(){
+        //GIVEN
+        student.setBirthDate(LocalDate.now().plusDays(1));
+        student.setEmail("no-at-sign");
+        student.setSubscribeEnd(SUBSCRIBE_START.minusDays(1));
+
+        //WHEN
+        List<StudentViolation> violations = validator.check(student);
+
+        //THEN
+        assertThat(violations).extracting(StudentViolation::getProperty, StudentViolation::getCode).containsExactly(
+                tuple("birthDate", "birthDate.impossible"),
+                tuple("email", "email.incorrect"),
+                tuple("subscribeEnd", "subscribeEnd.impossible"));
+        assertThat(StudentValidator.describe(violations))
+                .isEqualTo("Student isn't born yet. Email is incorrect. Subscribe can't end before it starts");
+    }
+
+    @DisplayName("Les formats de téléphone et d'email acceptent les mêmes valeurs que les expressions régulières d'origine")
+    @Test
+    public void test_student_validator_formats_match_former_patterns(){
+        //GIVEN
+        List<String> phoneNumbers = List.of("0606060606", "+33 6 06 06 06 06", "+", "++33", "06-06", "06\t06", "0６", "a", " +33");
+        List<String> emails = List.of("a@b", "first.last+tag@example.com", "@b", "a@", "a@@b", "a@b@c", "a b@c", "o’neil@x.fr",
+                "a@b_c", "é@x.fr", "{|}~^`@x-y.z", "a@b.c ");
+
+        //THEN
+        for (String phoneNumber : phoneNumbers) {
+            student.setPhoneNumber(phoneNumber);
+            assertThat(validator.check(student).isEmpty())
+                    .as(phoneNumber).isEqualTo(phoneNumber.matches("^[+]?[0-9\\s]+$"));
+        }
+        student.setPhoneNumber(PHONE_NUMBER);
+        for (String email : emails) {
+            student.setEmail(email);
+            assertThat(validator.check(student).isEmpty())
+                    .as(email).isEqualTo(email.matches("^[a-zA-Z0-9_!#$%&’*+/=?`{|}~^.-]+@[a-zA-Z0-9.-]+$"));
+        }
+    }
+
+    @DisplayName("Une longue liste est vérifiée en parallèle en gardant l'ordre des étudiants")
+    @Test
+    public void test_student_validator_check_all_keeps_order(){
+        //GIVEN
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            Student other = new Student();
+            other.setFirstName(FIRST_NAME);
+            other.setLastName(LAST_NAME);
+            other.setBirthDate(BIRTH_DATE);
+            other.setEmail(i % 7 == 0 ? "invalid" : EMAIL);
+            students.add(i % 1000 == 999 ? null : other);
+        }
+
+        //WHEN
+        List<List<StudentViolation>> violations = validator.checkAll(students);
+
+        //THEN
+        assertThat(violations).hasSize(5000);
+        for (int i = 0; i < 5000; i++) {
+            assertThat(violations.get(i)).as("student " + i).hasSize(i % 7 == 0 && i % 1000 != 999 ? 1 : 0);
+        }
+    }
 }